@@ -0,0 +1,51 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Generates synthetic user files for the benchmarks.
+ * User i has the username "user" + i and the password {@link #password(int)}.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Gets the password of a generated user.
+     *
+     * @param i The number of the user.
+     * @return The user's password.
+     */
+    static String password(int i) {
+        return "Bench#Pass" + i;
+    }
+
+    /**
+     * Writes a users.txt style file with the given number of users into a new
+     * temporary directory.
+     *
+     * @param hasher The hasher for the passwords.
+     * @param rows   The number of users to write.
+     * @return The path of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    static String generateUserFile(PasswordHasher hasher, int rows) throws IOException {
+        Path dir = Files.createTempDirectory("loginsystem-bench");
+        Path file = dir.resolve("users-" + rows + ".txt");
+        TextUserFileFormat format = new TextUserFileFormat(';');
+        try (UserFileFormat.UserWriter writer = format.openWriter(Files.newOutputStream(file), true)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(new User("First" + i, "Last" + i, "user" + i, hasher.hash(password(i)), "user" + i + "@example.com"));
+            }
+        }
+        file.toFile().deleteOnExit();
+        dir.toFile().deleteOnExit();
+        return file.toString();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to load user files of 1k, 100k and 1M users.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    private String filePath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        filePath = BenchmarkData.generateUserFile(new Sha256PasswordHasher(), users);
+    }
+
+    @Benchmark
+    public long loadUsersFromFile() {
+        try (FileUserStore store = new FileUserStore(filePath, new TextUserFileFormat(';'), 256, 2, false)) {
+            return store.size();
+        }
+    }
+}
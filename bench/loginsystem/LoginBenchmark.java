@@ -0,0 +1,78 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures login and registration against file-backed stores of 1k, 100k and
+ * 1M synthetic users. Passwords use the cheap SHA-256 hash so the store and
+ * lookup paths are what is measured; see {@link PasswordBenchmark} for the
+ * cost of each hash.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    private final AtomicLong nextUser = new AtomicLong();
+    private LoginSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String filePath = BenchmarkData.generateUserFile(new Sha256PasswordHasher(), users);
+        system = new LoginSystem(new FileUserStore(filePath, new TextUserFileFormat(';'), 256, 2, false), new Sha256PasswordHasher(), null);
+        system.isPasswordInvalid("warm-up"); // Load the dictionary outside the measurement
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.close();
+    }
+
+    @Benchmark
+    public boolean loginHit() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return system.authenticate("user" + i, BenchmarkData.password(i));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean loginHitContended() {
+        return loginHit();
+    }
+
+    @Benchmark
+    public boolean loginWrongPassword() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return system.authenticate("user" + i, "Wrong#Pass" + i);
+    }
+
+    @Benchmark
+    public boolean loginUnknownUser() {
+        return system.authenticate("nobody" + ThreadLocalRandom.current().nextInt(users), "Wrong#Pass");
+    }
+
+    @Benchmark
+    public boolean registerUser() {
+        long n = nextUser.incrementAndGet();
+        return system.registerUser("First", "Last", "new" + n, "Fresh#Pass" + n, "new" + n + "@example.com");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean registerUserContended() {
+        return registerUser();
+    }
+}
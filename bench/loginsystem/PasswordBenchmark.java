@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures password hashing and the bad password dictionary check.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordBenchmark {
+    @Param({"sha256", "pbkdf2"})
+    public String hash;
+
+    private LoginSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PasswordHasher hasher = hash.equals("sha256") ? new Sha256PasswordHasher() : new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.DEFAULT_ITERATIONS);
+        system = new LoginSystem(new InMemoryUserStore(), hasher);
+        system.isPasswordInvalid("warm-up"); // Load the dictionary outside the measurement
+    }
+
+    @Benchmark
+    public String encryptPassword() {
+        return system.encryptPassword("Bench#Pass12345");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String encryptPasswordContended() {
+        return system.encryptPassword("Bench#Pass12345");
+    }
+
+    @Benchmark
+    public boolean isPasswordInvalidHit() {
+        return system.isPasswordInvalid("qwerty");
+    }
+
+    @Benchmark
+    public boolean isPasswordInvalidMiss() {
+        return system.isPasswordInvalid("Bench#Pass12345");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean isPasswordInvalidMissContended() {
+        return system.isPasswordInvalid("Bench#Pass12345");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the login throttle: turning away an abusive source, and checking
+ * and counting failures for many different users and sources.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThrottleBenchmark {
+    private LoginSystem system;
+    private LoginThrottle throttle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        throttle = new LoginThrottle(60_000, 10, 100, 1 << 16);
+        system = new LoginSystem(new InMemoryUserStore(), new Sha256PasswordHasher(), new LoginThrottle(60_000, 10, 100, 1 << 16));
+        for (int i = 0; i < 200; i++) {
+            system.authenticate("victim", "Wrong#Pass", "10.0.0.1");
+        }
+    }
+
+    @Benchmark
+    public AuthResult loginThrottled() {
+        return system.authenticate("victim", "Wrong#Pass", "10.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public AuthResult loginThrottledContended() {
+        return system.authenticate("victim", "Wrong#Pass", "10.0.0.1");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean isThrottledSpreadContended() {
+        int i = ThreadLocalRandom.current().nextInt(1_000_000);
+        return throttle.isThrottled("user" + i, "10.1." + (i & 0xFF) + "." + (i >>> 8 & 0xFF));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordFailureSpreadContended() {
+        int i = ThreadLocalRandom.current().nextInt(1_000_000);
+        throttle.recordFailure("user" + i, "10.1." + (i & 0xFF) + "." + (i >>> 8 & 0xFF));
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package loginsystem;
+
+/**
+ * The outcome of a login attempt.
+ */
+public enum AuthResult {
+    /** The username exists and the password matches. */
+    SUCCESS,
+    /** No user has the given username. */
+    UNKNOWN_USER,
+    /** The user exists but the password does not match. */
+    WRONG_PASSWORD,
+    /** The attempt was not checked because the system is at capacity. */
+    REJECTED,
+    /** The attempt was not checked because there were too many attempts for the username or from the source. */
+    THROTTLED;
+
+    /**
+     * Checks if the login succeeded.
+     *
+     * @return True for {@link #SUCCESS}, otherwise false.
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks passwords against a bad password dictionary.
+ * A Bloom filter answers the common "not in the list" case; only passwords
+ * that hit the filter are checked against the exact index. The exact index is
+ * either a memory-mapped {@link MappedBadPasswordIndex} file or, when there is
+ * none, a {@link BadPasswordIndex} loaded the first time it is needed. The
+ * check never fails open: if the dictionary cannot be read, opening the
+ * filter or checking a password fails.
+ */
+public final class BadPasswordFilter {
+    private final String dictionaryPath;
+    private final BloomFilter bloomFilter;
+    private volatile FingerprintSet exactIndex;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+
+    private BadPasswordFilter(String dictionaryPath, BloomFilter bloomFilter, FingerprintSet exactIndex) {
+        this.dictionaryPath = dictionaryPath;
+        this.bloomFilter = bloomFilter;
+        this.exactIndex = exactIndex;
+    }
+
+    /**
+     * Opens the filter for a dictionary. If the binary index file exists it is
+     * mapped and used for exact checks, otherwise the text dictionary is used.
+     * An index that is older than the dictionary or is not a valid index file
+     * is rebuilt from the dictionary. The Bloom filter is read from the
+     * sidecar file if it matches the dictionary, otherwise it is rebuilt and
+     * the sidecar is rewritten.
+     *
+     * @param dictionaryPath    The text dictionary, one password per line.
+     * @param indexPath         The binary index built by {@link MappedBadPasswordIndex#build(String, String)}.
+     * @param sidecarPath       The binary file holding the serialized Bloom filter.
+     * @param falsePositiveRate The wanted false positive rate of the Bloom filter.
+     * @return The filter.
+     * @throws IOException If neither the index nor the dictionary can be read.
+     */
+    public static BadPasswordFilter open(String dictionaryPath, String indexPath, String sidecarPath, double falsePositiveRate) throws IOException {
+        File dictionary = new File(dictionaryPath);
+        MappedBadPasswordIndex mapped = openIndex(dictionary, indexPath);
+        File source = mapped != null ? new File(indexPath) : dictionary;
+        if (!source.isFile()) {
+            throw new FileNotFoundException(dictionaryPath);
+        }
+        long stamp = (source.length() * 31 + source.lastModified()) ^ Double.doubleToLongBits(falsePositiveRate);
+        File sidecar = new File(sidecarPath);
+        BloomFilter bloom = BloomFilter.readFrom(sidecar, stamp);
+        if (bloom == null) {
+            if (mapped != null) {
+                BloomFilter filter = BloomFilter.create(mapped.size(), falsePositiveRate);
+                mapped.forEachFingerprint(filter::put);
+                bloom = filter;
+            } else {
+                bloom = buildBloomFilter(source, falsePositiveRate);
+            }
+            try {
+                bloom.writeTo(sidecar, stamp);
+            } catch (IOException e) {
+                System.err.println("An error occurred while writing to the file: " + e.getMessage());
+            }
+        }
+        return new BadPasswordFilter(dictionaryPath, bloom, mapped);
+    }
+
+    /**
+     * Maps the binary index if it is usable, rebuilding it from the
+     * dictionary if it is older than the dictionary or cannot be mapped.
+     *
+     * @return The index, or null if there is none and the text dictionary is to be used.
+     */
+    private static MappedBadPasswordIndex openIndex(File dictionary, String indexPath) {
+        File index = new File(indexPath);
+        if (!index.isFile()) {
+            return null;
+        }
+        if (dictionary.isFile() && index.lastModified() < dictionary.lastModified()) {
+            System.err.println("The bad password index " + indexPath + " is older than " + dictionary + ", rebuilding it");
+            return rebuildIndex(dictionary, indexPath);
+        }
+        try {
+            return MappedBadPasswordIndex.open(indexPath);
+        } catch (IOException e) {
+            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+            return dictionary.isFile() ? rebuildIndex(dictionary, indexPath) : null;
+        }
+    }
+
+    private static MappedBadPasswordIndex rebuildIndex(File dictionary, String indexPath) {
+        try {
+            MappedBadPasswordIndex.build(dictionary.getPath(), indexPath);
+            return MappedBadPasswordIndex.open(indexPath);
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+            return null; // The text dictionary is used instead
+        }
+    }
+
+    private static BloomFilter buildBloomFilter(File dictionary, double falsePositiveRate) throws IOException {
+        long lines = 0;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dictionary), StandardCharsets.UTF_8))) {
+            while (br.readLine() != null) {
+                lines++;
+            }
+        }
+        BloomFilter bloom = BloomFilter.create(lines, falsePositiveRate);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dictionary), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                bloom.put(BadPasswordIndex.fingerprint(line));
+            }
+        }
+        return bloom;
+    }
+
+    /**
+     * Checks if the given password is in the dictionary.
+     *
+     * @param password The password to check.
+     * @return True if the password is a known bad password, otherwise false.
+     * @throws UncheckedIOException If the dictionary is needed for an exact check and cannot be read.
+     */
+    public boolean isBadPassword(String password) {
+        queries.increment();
+        long fp = BadPasswordIndex.fingerprint(password);
+        if (!bloomFilter.mightContain(fp)) {
+            return false;
+        }
+        filterHits.increment();
+        if (exactIndex().containsFingerprint(fp)) {
+            confirmed.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private FingerprintSet exactIndex() {
+        FingerprintSet index = exactIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = exactIndex;
+                if (index == null) {
+                    try {
+                        index = BadPasswordIndex.load(dictionaryPath);
+                    } catch (IOException e) {
+                        // Not cached, so the next check tries again
+                        throw new UncheckedIOException("Could not read the bad password dictionary " + dictionaryPath, e);
+                    }
+                    exactIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the Bloom filter in front of the dictionary.
+     *
+     * @return The Bloom filter.
+     */
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * Gets the false positive rate seen so far: the share of passwords not in
+     * the dictionary that still hit the Bloom filter.
+     *
+     * @return The measured false positive rate, or 0 if no such password was checked yet.
+     */
+    public double measuredFalsePositiveRate() {
+        long negatives = queries.sum() - confirmed.sum();
+        if (negatives == 0) {
+            return 0;
+        }
+        return (double) (filterHits.sum() - confirmed.sum()) / negatives;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An immutable, in-memory set of bad passwords.
+ * Each password is stored as a 64-bit fingerprint in an open-addressing table,
+ * so lookups are O(1) and the whole dictionary costs 8 bytes per slot.
+ */
+public final class BadPasswordIndex implements FingerprintSet {
+    private static final double LOAD_FACTOR = 0.7;
+    private static final long EMPTY = 0L;
+
+    private final long[] table;
+    private final int size;
+
+    private BadPasswordIndex(long[] table, int size) {
+        this.table = table;
+        this.size = size;
+    }
+
+    /**
+     * Loads a dictionary file with one password per line.
+     *
+     * @param filePath The path of the dictionary file.
+     * @return The loaded index.
+     * @throws IOException If the file cannot be read.
+     */
+    public static BadPasswordIndex load(String filePath) throws IOException {
+        LongList fingerprints = new LongList(1 << 16);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                fingerprints.add(fingerprint(line));
+            }
+        }
+        return build(fingerprints.values, fingerprints.size);
+    }
+
+    /**
+     * Returns an index that contains no passwords.
+     *
+     * @return The empty index.
+     */
+    public static BadPasswordIndex empty() {
+        return new BadPasswordIndex(new long[1], 0);
+    }
+
+    private static BadPasswordIndex build(long[] fingerprints, int count) {
+        int capacity = Math.max(1, (int) Math.ceil(count / LOAD_FACTOR));
+        long[] table = new long[capacity];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            long fp = fingerprints[i];
+            int slot = slotOf(fp, capacity);
+            while (table[slot] != EMPTY && table[slot] != fp) {
+                slot = (slot + 1 == capacity) ? 0 : slot + 1;
+            }
+            if (table[slot] == EMPTY) {
+                table[slot] = fp;
+                size++;
+            }
+        }
+        return new BadPasswordIndex(table, size);
+    }
+
+    /**
+     * Checks if the given password is in the index.
+     *
+     * @param password The password to check.
+     * @return True if the password is a known bad password, otherwise false.
+     */
+    public boolean contains(String password) {
+        return containsFingerprint(fingerprint(password));
+    }
+
+    @Override
+    public boolean containsFingerprint(long fp) {
+        int capacity = table.length;
+        int slot = slotOf(fp, capacity);
+        long current;
+        while ((current = table[slot]) != EMPTY) {
+            if (current == fp) {
+                return true;
+            }
+            slot = (slot + 1 == capacity) ? 0 : slot + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of distinct passwords in the index.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the heap used by the lookup table.
+     *
+     * @return The table size in bytes (array header included).
+     */
+    public long footprintBytes() {
+        return 16L + 8L * table.length;
+    }
+
+    /**
+     * Computes the 64-bit fingerprint of a password (FNV-1a over its UTF-8
+     * bytes, followed by a MurmurHash3 finalizer). Zero is reserved for empty
+     * slots and is never returned.
+     *
+     * @param password The password to fingerprint.
+     * @return The fingerprint.
+     */
+    static long fingerprint(String password) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < password.length(); i++) {
+            int c = password.charAt(i);
+            if (c < 0x80) {
+                h = (h ^ c) * 0x100000001b3L;
+            } else {
+                // Characters outside ASCII are rare here, take the slow path.
+                for (byte b : password.substring(i).getBytes(StandardCharsets.UTF_8)) {
+                    h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+                }
+                break;
+            }
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1L : h;
+    }
+
+    private static int slotOf(long fp, int capacity) {
+        return (int) (((fp >>> 32) * capacity) >>> 32);
+    }
+
+    /**
+     * A growable list of primitive longs, used while reading the dictionary.
+     */
+    private static final class LongList {
+        long[] values;
+        int size;
+
+        LongList(int initialCapacity) {
+            values = new long[initialCapacity];
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary user file format.
+ *
+ * The file starts with a header: the magic bytes "LSUS" and a version byte.
+ * Each record is a varint length followed by the record body:
+ * first name, last name and username as varint-length UTF-8 strings, the
+ * password, then the email as a varint-length UTF-8 string. The password is
+ * a tag byte followed by either a raw 32-byte SHA-256 digest (tag 0) or a
+ * varint-length UTF-8 string (tag 1). Fields may contain any character.
+ */
+public final class BinaryUserFileFormat implements UserFileFormat {
+    static final byte[] MAGIC = {'L', 'S', 'U', 'S'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 1;
+
+    private static final int TAG_DIGEST = 0;
+    private static final int TAG_STRING = 1;
+    private static final int DIGEST_SIZE = 32;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    @Override
+    public UserReader openReader(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        readHeader(data);
+        return new UserReader() {
+            private byte[] record = new byte[256];
+
+            @Override
+            public User read() throws IOException {
+                int length = readVarInt(data);
+                if (length < 0) {
+                    return null;
+                }
+                if (length > MAX_RECORD_SIZE) {
+                    throw new IOException("Corrupt user record length: " + length);
+                }
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                data.readFully(record, 0, length);
+                return decode(record, 0, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                data.close();
+            }
+        };
+    }
+
+    @Override
+    public UserWriter openWriter(OutputStream out, boolean writeHeader) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        if (writeHeader) {
+            buffered.write(MAGIC);
+            buffered.write(VERSION);
+        }
+        return new UserWriter() {
+            private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+            @Override
+            public void write(User user) throws IOException {
+                record.reset();
+                encode(user, record);
+                writeVarInt(buffered, record.size());
+                record.writeTo(buffered);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                buffered.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                buffered.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return true;
+    }
+
+    /**
+     * Reads and checks the file header.
+     *
+     * @param in The stream, positioned at the start of the file.
+     * @throws IOException If the header is missing or has an unknown version.
+     */
+    static void readHeader(DataInput in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a binary user file");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary user file version: " + version);
+        }
+    }
+
+    /**
+     * Encodes a user as a record body.
+     *
+     * @param user The user to encode.
+     * @param out  The stream to write the body to.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void encode(User user, OutputStream out) throws IOException {
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        writeString(out, user.getUsername());
+        String password = user.getPassword();
+        if (isLowerHexDigest(password)) {
+            out.write(TAG_DIGEST);
+            for (int i = 0; i < DIGEST_SIZE; i++) {
+                out.write(Character.digit(password.charAt(2 * i), 16) << 4 | Character.digit(password.charAt(2 * i + 1), 16));
+            }
+        } else {
+            out.write(TAG_STRING);
+            writeString(out, password);
+        }
+        writeString(out, user.getEmail());
+    }
+
+    /**
+     * Decodes a record body.
+     *
+     * @param bytes  The buffer holding the body.
+     * @param offset Where the body starts.
+     * @param length The length of the body.
+     * @return The user.
+     * @throws IOException If the body is corrupt.
+     */
+    static User decode(byte[] bytes, int offset, int length) throws IOException {
+        Cursor cursor = new Cursor(bytes, offset, offset + length);
+        String firstName = cursor.readString();
+        String lastName = cursor.readString();
+        String username = cursor.readString();
+        String password;
+        int tag = cursor.readByte();
+        if (tag == TAG_DIGEST) {
+            char[] hex = new char[DIGEST_SIZE * 2];
+            for (int i = 0; i < DIGEST_SIZE; i++) {
+                int b = cursor.readByte();
+                hex[2 * i] = Character.forDigit(b >>> 4, 16);
+                hex[2 * i + 1] = Character.forDigit(b & 0xF, 16);
+            }
+            password = new String(hex);
+        } else if (tag == TAG_STRING) {
+            password = cursor.readString();
+        } else {
+            throw new IOException("Corrupt user record: unknown password tag " + tag);
+        }
+        String email = cursor.readString();
+        if (cursor.position != cursor.end) {
+            throw new IOException("Corrupt user record: trailing bytes");
+        }
+        return new User(firstName, lastName, username, password, email);
+    }
+
+    private static boolean isLowerHexDigest(String password) {
+        if (password.length() != DIGEST_SIZE * 2) {
+            return false;
+        }
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     *
+     * @param out   The stream to write to.
+     * @param value The value, not negative.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Gets the number of bytes a varint takes.
+     *
+     * @param value The value, not negative.
+     * @return The encoded size in bytes.
+     */
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @param in The stream to read from.
+     * @return The value, or -1 if the stream ended before the first byte.
+     * @throws IOException If the stream ends inside the varint or the varint is too long.
+     */
+    static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated user record");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt user record: varint too long");
+    }
+
+    /**
+     * Reads fields out of a record body.
+     */
+    private static final class Cursor {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        Cursor(byte[] bytes, int position, int end) {
+            this.bytes = bytes;
+            this.position = position;
+            this.end = end;
+        }
+
+        int readByte() throws IOException {
+            if (position >= end) {
+                throw new EOFException("Truncated user record");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt user record: varint too long");
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > end - position) {
+                throw new EOFException("Truncated user record");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A Bloom filter over 64-bit fingerprints.
+ * It never gives a false negative, and gives a false positive with roughly
+ * the probability it was sized for.
+ */
+public final class BloomFilter {
+    private static final int MAGIC = 0x424C4F4D; // "BLOM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32; // Bytes before the bit words
+    private static final int MAX_HASHES = 64;
+
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+    private long insertions;
+
+    private BloomFilter(long[] bits, int numHashes, long insertions) {
+        this.bits = bits;
+        this.numBits = (long) bits.length * 64;
+        this.numHashes = numHashes;
+        this.insertions = insertions;
+    }
+
+    /**
+     * Creates an empty filter sized for the given number of entries.
+     *
+     * @param expectedInsertions The number of entries the filter will hold.
+     * @param falsePositiveRate  The wanted false positive rate, between 0 and 1.
+     * @return The new filter.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        long words = Math.max(1, (m + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter too large: " + m + " bits");
+        }
+        return new BloomFilter(new long[(int) words], k, 0);
+    }
+
+    /**
+     * Adds a fingerprint to the filter.
+     *
+     * @param fp The fingerprint to add.
+     */
+    public void put(long fp) {
+        long h1 = fp;
+        long h2 = (fp >>> 32) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    /**
+     * Checks if a fingerprint may have been added to the filter.
+     *
+     * @param fp The fingerprint to check.
+     * @return False if the fingerprint was definitely never added, true if it may have been.
+     */
+    public boolean mightContain(long fp) {
+        long h1 = fp;
+        long h2 = (fp >>> 32) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the false positive rate expected for the entries added so far.
+     *
+     * @return The expected false positive rate.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) numHashes * insertions / numBits), numHashes);
+    }
+
+    /**
+     * Gets the number of hash functions used per entry.
+     *
+     * @return The number of hashes.
+     */
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Gets the size of the bit array.
+     *
+     * @return The number of bits.
+     */
+    public long getNumBits() {
+        return numBits;
+    }
+
+    /**
+     * Gets the number of entries added to the filter.
+     *
+     * @return The number of insertions.
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * Writes the filter to a binary file. The filter is written to a temporary
+     * file that then replaces the file, so a crash never leaves half a filter.
+     *
+     * @param file   The file to write.
+     * @param source A stamp identifying the data the filter was built from.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeTo(File file, long source) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source);
+            out.writeInt(numHashes);
+            out.writeLong(insertions);
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+            out.flush();
+            fileOut.getChannel().force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo(File, long)}.
+     *
+     * @param file   The file to read.
+     * @param source The stamp the filter must have been written with.
+     * @return The filter, or null if the file is missing, corrupt or was built from other data.
+     *         The header is checked against the file's length before anything is allocated.
+     */
+    public static BloomFilter readFrom(File file, long source) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != source) {
+                return null;
+            }
+            int numHashes = in.readInt();
+            long insertions = in.readLong();
+            int words = in.readInt();
+            if (numHashes < 1 || numHashes > MAX_HASHES || insertions < 0 || words < 1
+                    || file.length() != HEADER_SIZE + (long) words * Long.BYTES) {
+                System.err.println("Ignoring a corrupt Bloom filter file: " + file);
+                return null;
+            }
+            long[] bits = new long[words];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new BloomFilter(bits, numHashes, insertions);
+        } catch (IOException e) {
+            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+/**
+ * A username and plain-text password to check, as entered by a user.
+ */
+public final class Credential {
+    private final String username;
+    private final String password;
+
+    /**
+     * Constructs a credential.
+     *
+     * @param username The username.
+     * @param password The plain-text password.
+     */
+    public Credential(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Gets the username.
+     *
+     * @return The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the plain-text password.
+     *
+     * @return The password.
+     */
+    public String getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A comma-separated (RFC 4180) user file, for exchanging users with other
+ * tools. The file starts with a header row naming the five columns; fields
+ * holding a comma, quote or line break are quoted, so any character can be
+ * stored.
+ */
+public final class CsvUserFileFormat implements UserFileFormat {
+    static final String HEADER = "first_name,last_name,username,password,email";
+
+    private static final int FIELDS = 5;
+
+    @Override
+    public UserReader openReader(InputStream in) {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        return new UserReader() {
+            private final String[] fields = new String[FIELDS + 1];
+            private final StringBuilder field = new StringBuilder();
+            private boolean first = true;
+
+            @Override
+            public User read() throws IOException {
+                int count;
+                while ((count = readRecord()) >= 0) {
+                    boolean header = first && count == FIELDS && HEADER.equals(String.join(",", fields[0], fields[1], fields[2], fields[3], fields[4]));
+                    first = false;
+                    if (count == FIELDS && !header) {
+                        return new User(fields[0], fields[1], fields[2], fields[3], fields[4]);
+                    }
+                }
+                return null;
+            }
+
+            /**
+             * Reads one record into the fields array.
+             *
+             * @return The number of fields in the record, or -1 at the end of the file.
+             */
+            private int readRecord() throws IOException {
+                int count = 0;
+                boolean quoted = false;
+                boolean any = false;
+                field.setLength(0);
+                int c;
+                while ((c = reader.read()) >= 0) {
+                    any = true;
+                    if (quoted) {
+                        if (c == '"') {
+                            reader.mark(1);
+                            if (reader.read() == '"') {
+                                field.append('"');
+                            } else {
+                                reader.reset();
+                                quoted = false;
+                            }
+                        } else {
+                            field.append((char) c);
+                        }
+                    } else if (c == '"' && field.length() == 0) {
+                        quoted = true;
+                    } else if (c == ',') {
+                        count = addField(count);
+                    } else if (c == '\n') {
+                        return addField(count);
+                    } else if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() == '\n') {
+                            return addField(count);
+                        }
+                        reader.reset();
+                        field.append('\r');
+                    } else {
+                        field.append((char) c);
+                    }
+                }
+                return any ? addField(count) : -1;
+            }
+
+            private int addField(int count) {
+                if (count < fields.length) {
+                    fields[count] = field.toString();
+                }
+                field.setLength(0);
+                return count + 1;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    @Override
+    public UserWriter openWriter(OutputStream out, boolean writeHeader) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        if (writeHeader) {
+            writer.write(HEADER);
+            writer.write("\r\n");
+        }
+        return new UserWriter() {
+            @Override
+            public void write(User user) throws IOException {
+                writeField(user.getFirstName());
+                writer.write(',');
+                writeField(user.getLastName());
+                writer.write(',');
+                writeField(user.getUsername());
+                writer.write(',');
+                writeField(user.getPassword());
+                writer.write(',');
+                writeField(user.getEmail());
+                writer.write("\r\n");
+            }
+
+            private void writeField(String value) throws IOException {
+                boolean quote = false;
+                for (int i = 0; i < value.length() && !quote; i++) {
+                    char c = value.charAt(i);
+                    quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+                }
+                if (!quote) {
+                    writer.write(value);
+                    return;
+                }
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Makes new hashes with one preferred hasher and checks stored hashes with
+ * whichever known hasher produced them. Hashes made by the preferred hasher
+ * with a lower cost, or by a weaker kind of hasher, are reported as needing a
+ * rehash; a hash is never replaced by a weaker one.
+ */
+public final class DelegatingPasswordHasher implements PasswordHasher {
+    private final PasswordHasher preferred;
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    /**
+     * Creates the hasher.
+     *
+     * @param preferred The hasher used for new hashes.
+     * @param others    Hashers for older hashes that must still verify.
+     */
+    public DelegatingPasswordHasher(PasswordHasher preferred, PasswordHasher... others) {
+        this.preferred = preferred;
+        hashers.add(preferred);
+        hashers.addAll(Arrays.asList(others));
+    }
+
+    /**
+     * Gets the hasher used for new hashes.
+     *
+     * @return The preferred hasher.
+     */
+    public PasswordHasher getPreferred() {
+        return preferred;
+    }
+
+    @Override
+    public String hash(String password) {
+        return preferred.hash(password);
+    }
+
+    @Override
+    public boolean supports(String encoded) {
+        return find(encoded) != null;
+    }
+
+    @Override
+    public boolean matches(String password, String encoded) {
+        PasswordHasher hasher = find(encoded);
+        return hasher != null && hasher.matches(password, encoded);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        if (preferred.supports(encoded)) {
+            return preferred.needsRehash(encoded);
+        }
+        PasswordHasher current = find(encoded);
+        return current == null || current.getStrength() < preferred.getStrength();
+    }
+
+    @Override
+    public int getStrength() {
+        return preferred.getStrength();
+    }
+
+    private PasswordHasher find(String encoded) {
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.supports(encoded)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A user store backed by a user file, such as users.txt.
+ * Every user is loaded into memory when the store is opened; new users are
+ * appended to the file through a {@link UserAppendLog}. When a username
+ * appears more than once in the file, the last record wins. A record cut
+ * short at the end of the file by a crash is removed before anything is
+ * appended, so it cannot hide the records written after it. Any other
+ * damage stops the store from opening, rather than having new users written
+ * after records that can no longer be read.
+ */
+public final class FileUserStore implements UserStore {
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    private final String filePath;
+    private final UserFileFormat format;
+    private final UserAppendLog appendLog; // Writes new users to the file in batches
+
+    /**
+     * Opens the store, loading the users already in the file.
+     *
+     * @param filePath       The user file. It is created on the first write if missing.
+     * @param format         The format of the file.
+     * @param maxBatchSize   The most users written to the file in one batch.
+     * @param maxDelayMillis How long a batch waits for more users before it is written.
+     * @param fsync          True to sync the file to disk after each batch.
+     * @throws UncheckedIOException If the file exists but cannot be read or
+     *         holds a corrupt record, or cannot be opened for appending.
+     */
+    public FileUserStore(String filePath, UserFileFormat format, int maxBatchSize, long maxDelayMillis, boolean fsync) {
+        this.filePath = filePath;
+        this.format = format;
+        try {
+            loadUsersFromFile();
+            appendLog = new UserAppendLog(filePath, format, maxBatchSize, maxDelayMillis, fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the user store " + filePath, e);
+        }
+    }
+
+    /**
+     * Loads user data from the file. A missing file is an empty store.
+     */
+    private void loadUsersFromFile() throws IOException {
+        if (!new File(filePath).isFile()) {
+            return;
+        }
+        if (format instanceof TextUserFileFormat) {
+            dropPartialLastLine();
+            UserFileLoader.LoadStats stats = new UserFileLoader(((TextUserFileFormat) format).getDelimiter()).load(filePath, users);
+            if (stats.getSkipped() > 0) {
+                System.err.println("Skipped " + stats.getSkipped() + " malformed lines in " + filePath);
+            }
+        } else if (format instanceof BinaryUserFileFormat) {
+            loadBinary();
+        } else {
+            try (UserFileFormat.UserReader reader = format.openReader(new FileInputStream(filePath))) {
+                User user;
+                while ((user = reader.read()) != null) {
+                    users.put(user.getUsername(), user);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a binary user file, truncating it after the last complete record.
+     */
+    private void loadBinary() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long offset = 0;
+            if (size >= BinaryUserFileFormat.HEADER_SIZE) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+                BinaryUserFileFormat.readHeader(in);
+                offset = BinaryUserFileFormat.HEADER_SIZE;
+                byte[] record = new byte[256];
+                while (true) {
+                    int length;
+                    try {
+                        length = BinaryUserFileFormat.readVarInt(in);
+                        if (length < 0 || length > size - offset - BinaryUserFileFormat.varIntSize(length)) {
+                            break; // The end of the file, or a record longer than what is left of it
+                        }
+                        if (record.length < length) {
+                            record = new byte[length];
+                        }
+                        in.readFully(record, 0, length);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    User user = BinaryUserFileFormat.decode(record, 0, length);
+                    users.put(user.getUsername(), user);
+                    offset += BinaryUserFileFormat.varIntSize(length) + length;
+                }
+            }
+            if (offset < size) {
+                System.err.println("Discarding a torn record at the end of " + filePath);
+                channel.truncate(offset);
+            }
+        }
+    }
+
+    /**
+     * Cuts off a text file's last line if it does not end with a line break,
+     * which is a line a crash interrupted.
+     */
+    private void dropPartialLastLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            while (end > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end));
+                long start = end - buffer.limit();
+                while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                    // Read the whole block
+                }
+                int i = buffer.position() - 1;
+                while (i >= 0 && buffer.get(i) != '\n') {
+                    i--;
+                }
+                if (i >= 0) {
+                    end = start + i + 1;
+                    break;
+                }
+                end = start;
+            }
+            if (end < channel.size()) {
+                System.err.println("Discarding a torn line at the end of " + filePath);
+                channel.truncate(end);
+            }
+        }
+    }
+
+    @Override
+    public User get(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putIfAbsent(User user) {
+        if (users.putIfAbsent(user.getUsername(), user) != null) {
+            return CompletableFuture.completedFuture(false); // Another thread registered the same username first
+        }
+        return saveUserToFile(user).whenComplete((written, e) -> {
+            if (e != null) {
+                users.remove(user.getUsername(), user); // Not stored, so the username is free again
+            }
+        }).thenApply(written -> true);
+    }
+
+    @Override
+    public CompletableFuture<boolean[]> putAllIfAbsent(List<User> batch) {
+        boolean[] added = new boolean[batch.size()];
+        List<User> toWrite = new ArrayList<>(batch.size());
+        for (int i = 0; i < added.length; i++) {
+            User user = batch.get(i);
+            added[i] = users.putIfAbsent(user.getUsername(), user) == null;
+            if (added[i]) {
+                toWrite.add(user);
+            }
+        }
+        if (toWrite.isEmpty()) {
+            return CompletableFuture.completedFuture(added);
+        }
+        return appendLog.appendAll(toWrite).whenComplete((written, e) -> {
+            if (e != null) {
+                forget(toWrite);
+            }
+        }).thenApply(written -> added);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(User user) {
+        users.put(user.getUsername(), user);
+        return saveUserToFile(user);
+    }
+
+    /**
+     * Removes users that were added to the map but could not be written.
+     */
+    private void forget(List<User> unwritten) {
+        for (User user : unwritten) {
+            users.remove(user.getUsername(), user);
+        }
+    }
+
+    /**
+     * Queues user data to be appended to the file.
+     *
+     * @param user The user to save.
+     * @return A future that completes once the user has been written.
+     */
+    private CompletableFuture<Void> saveUserToFile(User user) {
+        return appendLog.append(user);
+    }
+
+    @Override
+    public void scan(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return users.size();
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return format.canStore(user);
+    }
+
+    @Override
+    public void close() {
+        appendLog.close();
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package loginsystem;
+
+/**
+ * A set of password fingerprints, as computed by {@link BadPasswordIndex#fingerprint(String)}.
+ */
+interface FingerprintSet {
+
+    /**
+     * Checks if the given fingerprint is in the set.
+     *
+     * @param fp The fingerprint to check.
+     * @return True if the fingerprint is present, otherwise false.
+     */
+    boolean containsFingerprint(long fp);
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A user store that only keeps users in memory, for tests and benchmarks.
+ */
+public final class InMemoryUserStore implements UserStore {
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+
+    @Override
+    public User get(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putIfAbsent(User user) {
+        return CompletableFuture.completedFuture(users.putIfAbsent(user.getUsername(), user) == null);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(User user) {
+        users.put(user.getUsername(), user);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void scan(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return users.size();
+    }
+
+    @Override
+    public void close() {
+    }
+}
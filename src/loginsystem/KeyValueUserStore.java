@@ -0,0 +1,298 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * An embedded key-value user store.
+ * Users are kept as records of {@link BinaryUserFileFormat} in a single data
+ * file; only a username index of record offsets is held in memory, and each
+ * lookup reads its record from the file. The index is rebuilt by scanning the
+ * data file when the store is opened, and a record torn by a crash at the end
+ * of the file is cut off. Recently used users can be kept in a size-bounded
+ * {@link UserCache}, so hot users are served without reading the file.
+ */
+public final class KeyValueUserStore implements UserStore {
+    private static final int READ_AHEAD = 256;
+
+    private final ConcurrentMap<String, Long> index = new ConcurrentHashMap<>();
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final UserCache cache; // Null if caching is off
+    private long end; // Where the next record is written, guarded by this
+
+    /**
+     * Opens the store without a user cache, creating the data file if it does not exist.
+     *
+     * @param filePath The data file.
+     * @param fsync    True to sync the file to disk after each write.
+     * @throws IOException If the data file cannot be opened or is not a binary user file.
+     */
+    public KeyValueUserStore(String filePath, boolean fsync) throws IOException {
+        this(filePath, fsync, 0);
+    }
+
+    /**
+     * Opens the store, creating the data file if it does not exist.
+     *
+     * @param filePath  The data file.
+     * @param fsync     True to sync the file to disk after each write.
+     * @param cacheSize The most users kept in memory, or 0 to read every lookup from the file.
+     * @throws IOException If the data file cannot be opened or is not a binary user file.
+     */
+    public KeyValueUserStore(String filePath, boolean fsync, int cacheSize) throws IOException {
+        this.fsync = fsync;
+        this.cache = cacheSize > 0 ? new UserCache(cacheSize) : null;
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(BinaryUserFileFormat.HEADER_SIZE);
+                header.put(BinaryUserFileFormat.MAGIC).put((byte) BinaryUserFileFormat.VERSION).flip();
+                channel.write(header, 0);
+            }
+            end = buildIndex();
+            if (end < channel.size()) {
+                System.err.println("Discarding a torn record at the end of " + filePath);
+                channel.truncate(end);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scans the data file and records the offset of each user's latest record.
+     *
+     * @return The offset just past the last complete record.
+     */
+    private long buildIndex() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        BinaryUserFileFormat.readHeader(in);
+        long size = channel.size();
+        long offset = BinaryUserFileFormat.HEADER_SIZE;
+        byte[] record = new byte[READ_AHEAD];
+        while (true) {
+            int length;
+            try {
+                length = BinaryUserFileFormat.readVarInt(in);
+                if (length < 0) {
+                    return offset;
+                }
+                if (length > size - offset - BinaryUserFileFormat.varIntSize(length)) {
+                    return offset; // Longer than what is left of the file: a torn or corrupt length
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                User user = BinaryUserFileFormat.decode(record, 0, length);
+                index.put(user.getUsername(), offset);
+            } catch (EOFException e) {
+                return offset; // Torn write at the end of the file
+            }
+            offset += BinaryUserFileFormat.varIntSize(length) + length;
+        }
+    }
+
+    @Override
+    public User get(String username) {
+        if (cache != null) {
+            User cached = cache.get(username);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Long offset = index.get(username);
+        if (offset == null) {
+            return null;
+        }
+        User user;
+        try {
+            user = readRecord(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (cache != null) {
+            cache.put(user);
+            if (!offset.equals(index.get(username))) {
+                cache.remove(user); // Replaced by a writer while it was being read
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Gets the user cache.
+     *
+     * @return The cache, or null if caching is off.
+     */
+    public UserCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Reads the record at the given offset with positional reads, so many
+     * threads can read at once.
+     */
+    private User readRecord(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_AHEAD);
+        readFully(buffer, offset);
+        int length = 0;
+        int position = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= 35 || position >= buffer.limit()) {
+                throw new IOException("Corrupt user record at offset " + offset);
+            }
+            int b = buffer.get(position++) & 0xFF;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (position + length > buffer.limit()) {
+            ByteBuffer larger = ByteBuffer.allocate(position + length);
+            readFully(larger, offset);
+            buffer = larger;
+        }
+        return BinaryUserFileFormat.decode(buffer.array(), position, length);
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return index.containsKey(username);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Boolean> putIfAbsent(User user) {
+        if (index.containsKey(user.getUsername())) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return write(List.of(user)).thenApply(written -> true);
+    }
+
+    @Override
+    public synchronized CompletableFuture<boolean[]> putAllIfAbsent(List<User> batch) {
+        boolean[] added = new boolean[batch.size()];
+        List<User> toWrite = new ArrayList<>(batch.size());
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < added.length; i++) {
+            String username = batch.get(i).getUsername();
+            added[i] = !index.containsKey(username) && names.add(username); // Only the first of a name repeated in the batch
+            if (added[i]) {
+                toWrite.add(batch.get(i));
+            }
+        }
+        if (toWrite.isEmpty()) {
+            return CompletableFuture.completedFuture(added);
+        }
+        return write(toWrite).thenApply(written -> added);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> put(User user) {
+        return write(List.of(user));
+    }
+
+    /**
+     * Appends a record for each user with a single write and points the
+     * index at them. Callers hold the store's lock.
+     */
+    private CompletableFuture<Void> write(List<User> batch) {
+        LoginEvents.FileAppend event = new LoginEvents.FileAppend();
+        event.begin();
+        event.users = batch.size();
+        event.synced = fsync;
+        try {
+            ByteArrayOutputStream records = new ByteArrayOutputStream(batch.size() * 160);
+            ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+            long[] offsets = new long[batch.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                body.reset();
+                BinaryUserFileFormat.encode(batch.get(i), body);
+                offsets[i] = end + records.size();
+                BinaryUserFileFormat.writeVarInt(records, body.size());
+                body.writeTo(records);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            long offset = end;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            end += records.size();
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytes = records.size();
+                event.outcome = "written";
+                event.commit();
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                index.put(batch.get(i).getUsername(), offsets[i]);
+                if (cache != null) {
+                    cache.put(batch.get(i));
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = "failed";
+                event.commit();
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void scan(Consumer<User> action) {
+        index.values().forEach(offset -> {
+            try {
+                action.accept(readRecord(offset));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public long size() {
+        return index.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("An error occurred while closing the file: " + e.getMessage());
+        }
+    }
+}
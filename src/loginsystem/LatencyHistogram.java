@@ -0,0 +1,159 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with fixed log-linear buckets, in
+ * the style of HdrHistogram: every power of two is split into 16 buckets, so
+ * a recorded value is known to within about 6% whatever its size. Recording
+ * is a few atomic increments and never allocates or locks. Latencies above
+ * about 36 minutes are counted in the last bucket.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40; // Values up to 2^40 ns
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds; negative values count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(bucket(value));
+        total.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Another thread raised the maximum, try again
+        }
+    }
+
+    /**
+     * Gets the bucket of a value: values below 32 have a bucket each, and
+     * each power of two above is split into 16 buckets.
+     */
+    private static int bucket(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the highest value that falls in a bucket.
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Takes a copy of the counts. Values recorded while the copy is taken
+     * may or may not be in it.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum(), max.get());
+    }
+
+    /**
+     * Clears every count.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * The counts of a histogram at one moment.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return The mean in nanoseconds, or 0 if nothing was recorded.
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return The maximum in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets a percentile of the recorded values.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         * @return The highest value of the bucket the percentile falls in, in
+         *         nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The Java Flight Recorder events of the login system, for profiling logins
+ * and registrations alongside the JVM's own GC and I/O events, for example
+ * with "jcmd &lt;pid&gt; JFR.start". Nothing is recorded, and the events cost
+ * next to nothing, unless a recording is running.
+ *
+ * Users are identified by a keyed hash of their username rather than the
+ * username itself, so recordings can be shared without listing who logged
+ * in. The key is a random secret of the process, so nobody can hash a list
+ * of usernames to find out whose events they are; the flip side is that the
+ * same username has the same hash within one run only. The per-lookup
+ * events have a threshold, so only slow lookups are recorded unless a
+ * recording lowers it.
+ */
+final class LoginEvents {
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    private static final SecretKeySpec HASH_KEY = newHashKey();
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(LoginEvents::newMac);
+
+    private LoginEvents() {
+    }
+
+    private static SecretKeySpec newHashKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return new SecretKeySpec(key, HASH_ALGORITHM);
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            mac.init(HASH_KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Hashes a username for the events with the process's secret key. Only
+     * called once an event is known to be committed.
+     *
+     * @param username The username, or null.
+     * @return The first 64 bits of the username's HMAC-SHA256, or 0 for null.
+     */
+    static long usernameHash(String username) {
+        if (username == null) {
+            return 0;
+        }
+        byte[] mac = MAC.get().doFinal(username.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = hash << 8 | (mac[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    @Name("loginsystem.DictionaryCheck")
+    @Label("Bad Password Check")
+    @Category({"Login System", "Passwords"})
+    @Description("A password looked up in the bad password dictionary")
+    @Threshold("100 us")
+    @StackTrace(false)
+    static final class DictionaryCheck extends Event {
+        @Label("Outcome")
+        @Description("\"listed\" if the password is in the dictionary, otherwise \"not listed\"")
+        String outcome;
+    }
+
+    @Name("loginsystem.PasswordHash")
+    @Label("Password Hash")
+    @Category({"Login System", "Passwords"})
+    @Description("A new password hashed, or an entered password hashed and compared with a stored hash")
+    @StackTrace(false)
+    static final class PasswordHash extends Event {
+        @Label("Username Hash")
+        long usernameHash;
+
+        @Label("Outcome")
+        @Description("\"hashed\" for a new password, otherwise \"match\" or \"mismatch\"")
+        String outcome;
+    }
+
+    @Name("loginsystem.StoreLookup")
+    @Label("User Store Lookup")
+    @Category({"Login System", "User Store"})
+    @Description("A user looked up in the user store")
+    @Threshold("100 us")
+    @StackTrace(false)
+    static final class StoreLookup extends Event {
+        @Label("Username Hash")
+        long usernameHash;
+
+        @Label("Outcome")
+        @Description("\"found\" or \"not found\"")
+        String outcome;
+    }
+
+    @Name("loginsystem.FileAppend")
+    @Label("User File Append")
+    @Category({"Login System", "User Store"})
+    @Description("A batch of users appended to a user file")
+    @StackTrace(false)
+    static final class FileAppend extends Event {
+        @Label("Users")
+        int users;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Synced")
+        @Description("True if the file was synced to disk")
+        boolean synced;
+
+        @Label("Outcome")
+        @Description("\"written\" or \"failed\"")
+        String outcome;
+    }
+
+    @Name("loginsystem.Authentication")
+    @Label("Authentication")
+    @Category("Login System")
+    @Description("A username and password checked, from the store lookup to the hash comparison")
+    @StackTrace(false)
+    static final class Authentication extends Event {
+        @Label("Username Hash")
+        long usernameHash;
+
+        @Label("Outcome")
+        @Description("The authentication result, such as SUCCESS or WRONG_PASSWORD")
+        String outcome;
+    }
+
+    @Name("loginsystem.Registration")
+    @Label("Registration")
+    @Category("Login System")
+    @Description("A user registered, from the checks until the user has been stored")
+    @StackTrace(false)
+    static final class Registration extends Event {
+        @Label("Username Hash")
+        long usernameHash;
+
+        @Label("Caller Thread")
+        @Description("The thread that asked for the registration; the event's own thread is the one that finished storing the user")
+        Thread callerThread;
+
+        @Label("Outcome")
+        @Description("\"registered\", \"refused\" or \"failed\"")
+        String outcome;
+    }
+
+    @Name("loginsystem.FrameLogin")
+    @Label("Login Frame Login")
+    @Category("Login System")
+    @Description("A login from the login frame, from the button press until the result is shown, including the wait for a hashing thread")
+    @StackTrace(false)
+    static final class FrameLogin extends Event {
+        @Label("Username Hash")
+        long usernameHash;
+
+        @Label("Outcome")
+        @Description("The authentication result, such as SUCCESS or WRONG_PASSWORD")
+        String outcome;
+    }
+}
@@ -4,7 +4,6 @@
  */
 package loginsystem;
 
-import java.io.*;
 
 /**
  *
@@ -12,6 +11,8 @@ import java.io.*;
  */
 public class LoginFrame extends javax.swing.JFrame {
 
+    private final LoginSystem loginSystem = LoginSystem.getInstance();
+
     /**
      * Creates new form NewJFrame
      */
@@ -102,13 +103,17 @@ public class LoginFrame extends javax.swing.JFrame {
     private void jPasswordField1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jPasswordField1ActionPerformed
         String enteredPassword = new String(jPasswordField1.getPassword());
         
-        if (isPasswordRegistered(enteredPassword)) {
-            // Handle scenario where the password is found in the registered passwords
-            System.err.println("Password is registered.");
-        } else {
-            // Handle scenario where the password does not match any registered passwords
-            System.err.println("Password is not registered.");
-        }
+        // The password is checked against the user typed in the username field, off the event dispatch thread
+        String enteredUsername = jTextField1.getText();
+        login(enteredUsername, enteredPassword, result -> {
+            if (result == AuthResult.SUCCESS) {
+                // Handle scenario where the password matches the entered username
+                System.err.println("Password is registered.");
+            } else if (result == AuthResult.UNKNOWN_USER || result == AuthResult.WRONG_PASSWORD) {
+                // Handle scenario where the password does not match the entered username
+                System.err.println("Password is not registered.");
+            }
+        });
     }//GEN-LAST:event_jPasswordField1ActionPerformed
 
     private void jTextField1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jTextField1ActionPerformed
@@ -127,68 +132,61 @@ public class LoginFrame extends javax.swing.JFrame {
  String enteredUsername = jTextField1.getText();
     String enteredPassword = new String(jPasswordField1.getPassword());
 
-    if (isValidLogin(enteredUsername, enteredPassword)) {
-        // If the login is successful, display a success message or navigate to the next screen
-        System.err.println("Login successful!");
-    } else {
-        // If the login fails, display an error message or take appropriate action
-        System.err.println("Invalid username or password. Please try again.");
-    }
+    // Passwords are hashed on the login pool so the event dispatch thread is never blocked
+    jButton1.setEnabled(false);
+    login(enteredUsername, enteredPassword, result -> {
+        jButton1.setEnabled(true);
+        if (result == AuthResult.SUCCESS) {
+            // If the login is successful, display a success message or navigate to the next screen
+            System.err.println("Login successful!");
+        } else if (result == AuthResult.UNKNOWN_USER || result == AuthResult.WRONG_PASSWORD) {
+            // If the login fails, display an error message or take appropriate action
+            System.err.println("Invalid username or password. Please try again.");
+        }
+    });
     }//GEN-LAST:event_jButton1ActionPerformed
 
-private boolean doesUsernameExist(String username) {
-    String filePath = "users.txt"; // Adjust this path to where your users.txt file is located
-    
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            // Assuming the username is stored as the first value in a comma-separated list
-            String storedUsername = line.split(",")[0]; // Adjust index if necessary based on your file structure
-            
-            if (username.equals(storedUsername)) {
-                return true; // Username found
-            }
-        }
-    } catch (IOException e) {
-        System.err.println("An error occurred while reading the file: " + e.getMessage());
-        // Handle error - could indicate file not found or other issues reading the file
-    }
-    
-    return false; // Username not found
-}
-    private boolean isPasswordRegistered(String enteredPassword) {
-    String filePath = "users.txt"; // Adjust this to the location of your users.txt file
-    
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            String[] userData = line.split(",");
-            if (userData.length >= 2) { // Ensure there are at least two elements
-                String storedPassword = userData[1];
-                
-                if (enteredPassword.equals(storedPassword)) {
-                    return true; // The entered password matches a registered password
+/**
+ * Checks a username and password on the login pool and hands the outcome to
+ * the event dispatch thread. A busy system, a throttled attempt and an error
+ * are reported here; the caller only tells success from wrong credentials.
+ *
+ * @param username The username entered by the user.
+ * @param password The password entered by the user.
+ * @param onDone   Called on the event dispatch thread with the outcome, or with null if the login failed with an error.
+ */
+private void login(String username, String password, java.util.function.Consumer<AuthResult> onDone) {
+    LoginEvents.FrameLogin event = new LoginEvents.FrameLogin();
+    event.begin();
+    long start = LoginMetrics.start();
+    loginSystem.authenticateAsync(username, password).whenComplete((result, error) ->
+            java.awt.EventQueue.invokeLater(() -> {
+                LoginMetrics.record(LoginMetrics.Operation.FRAME_LOGIN, start, result == AuthResult.SUCCESS);
+                commitFrameLogin(event, username, result);
+                if (error != null) {
+                    System.err.println("An error occurred while logging in: " + error.getMessage());
+                } else if (result == AuthResult.REJECTED) {
+                    System.err.println("The server is busy. Please try again.");
+                } else if (result == AuthResult.THROTTLED) {
+                    System.err.println("Too many login attempts. Please wait and try again.");
                 }
-            }
-        }
-    } catch (IOException e) {
-        System.err.println("An error occurred while reading the file: " + e.getMessage());
-    }
-    
-    return false; // No matching password found
+                onDone.accept(error != null ? null : result);
+            }));
 }
-private boolean isValidLogin(String username, String password) {
-    // Check if the username exists
-    if (doesUsernameExist(username)) {
-        // Check if the entered password matches the registered password
-        return isPasswordRegistered(password);
-    } else {
-        // Username does not exist, so the login cannot be valid
-        return false;
+
+private static void commitFrameLogin(LoginEvents.FrameLogin event, String username, AuthResult result) {
+    event.end();
+    if (event.shouldCommit()) {
+        event.usernameHash = LoginEvents.usernameHash(username);
+        event.outcome = result != null ? result.name() : "ERROR";
+        event.commit();
     }
 }
+
+private boolean doesUsernameExist(String username) {
+    // Looked up in the shared in-memory user index, no file access
+    return loginSystem.isRegistered(username);
+}
     /**
      * @param args the command line arguments
      */
@@ -0,0 +1,321 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts and latency histograms of the login system's operations, split by
+ * success and failure, shared by the whole process.
+ *
+ * The metrics are on unless "loginsystem.metrics" is false. When they are
+ * on, they are registered as a JMX MBean (see {@link LoginMetricsMXBean})
+ * and, if "loginsystem.metrics.dumpIntervalMillis" is above zero, printed
+ * that often. When they are off, the instance is null and, as it is held in
+ * a static final field, the timing calls compile down to nothing.
+ */
+public final class LoginMetrics implements LoginMetricsMXBean {
+    static final String OBJECT_NAME = "loginsystem:type=LoginMetrics";
+
+    private static final LoginMetrics INSTANCE = fromProperties();
+
+    /**
+     * The operations that are timed.
+     */
+    public enum Operation {
+        /** Checking a username and password, from the store lookup to the hash comparison. */
+        AUTHENTICATE,
+        /** Registering one user, until it has been stored. */
+        REGISTER,
+        /** Looking a password up in the bad password dictionary; failure means it was listed. */
+        PASSWORD_CHECK,
+        /** Hashing a new password. */
+        PASSWORD_HASH,
+        /** Opening the user store, including loading its users. */
+        OPEN_STORE,
+        /** Writing a snapshot of a write-ahead log store, see {@link WalUserStore}. */
+        COMPACT,
+        /** A login from the login frame, from the button press until the result is shown. */
+        FRAME_LOGIN
+    }
+
+    private final LatencyHistogram[] successes = new LatencyHistogram[Operation.values().length];
+    private final LatencyHistogram[] failures = new LatencyHistogram[Operation.values().length];
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    /**
+     * Creates metrics with every count at zero.
+     */
+    public LoginMetrics() {
+        for (int i = 0; i < successes.length; i++) {
+            successes[i] = new LatencyHistogram();
+            failures[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Creates the metrics configured by the system properties, registers
+     * them with the platform MBean server and starts the periodic dump.
+     *
+     * @return The metrics, or null if "loginsystem.metrics" is false.
+     */
+    private static LoginMetrics fromProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("loginsystem.metrics", "true"))) {
+            return null;
+        }
+        LoginMetrics metrics = new LoginMetrics();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            System.err.println("An error occurred while registering the metrics MBean: " + e.getMessage());
+        }
+        long dumpIntervalMillis = Long.getLong("loginsystem.metrics.dumpIntervalMillis", 0);
+        if (dumpIntervalMillis > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "login-metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(() -> System.out.print(metrics.getReport()),
+                    dumpIntervalMillis, dumpIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the metrics shared by the whole process.
+     *
+     * @return The metrics, or null if they are off.
+     */
+    public static LoginMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time to pass to {@link #record}, or 0 if the metrics are off.
+     */
+    static long start() {
+        return INSTANCE == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the latency of an operation since the given start time.
+     *
+     * @param operation The operation.
+     * @param start     The time returned by {@link #start}.
+     * @param success   True if the operation succeeded, otherwise false.
+     */
+    static void record(Operation operation, long start, boolean success) {
+        if (INSTANCE != null) {
+            INSTANCE.recordLatency(operation, success, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts a login turned away by the throttle.
+     */
+    static void countThrottled() {
+        if (INSTANCE != null) {
+            INSTANCE.throttled.increment();
+        }
+    }
+
+    /**
+     * Counts a request refused because the hashing pool's queue was full.
+     */
+    static void countRejected() {
+        if (INSTANCE != null) {
+            INSTANCE.rejected.increment();
+        }
+    }
+
+    /**
+     * Counts a lookup in a {@link UserCache}.
+     *
+     * @param hit True if the user was cached, otherwise false.
+     */
+    static void countCacheLookup(boolean hit) {
+        if (INSTANCE != null) {
+            (hit ? INSTANCE.cacheHits : INSTANCE.cacheMisses).increment();
+        }
+    }
+
+    /**
+     * Counts a user evicted from a {@link UserCache} to make room for another.
+     */
+    static void countCacheEviction() {
+        if (INSTANCE != null) {
+            INSTANCE.cacheEvictions.increment();
+        }
+    }
+
+    /**
+     * Records the latency of an operation.
+     *
+     * @param operation The operation.
+     * @param success   True if the operation succeeded, otherwise false.
+     * @param nanos     How long it took, in nanoseconds.
+     */
+    public void recordLatency(Operation operation, boolean success, long nanos) {
+        (success ? successes : failures)[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Gets a snapshot of the latencies of one operation and outcome.
+     *
+     * @param operation The operation.
+     * @param success   True for the successes, false for the failures.
+     * @return The snapshot.
+     */
+    public LatencyHistogram.Snapshot getLatencies(Operation operation, boolean success) {
+        return (success ? successes : failures)[operation.ordinal()].snapshot();
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            for (boolean success : new boolean[]{true, false}) {
+                LatencyHistogram.Snapshot snapshot = getLatencies(operation, success);
+                if (snapshot.getCount() > 0) {
+                    stats.add(new OperationStats(operation, success, snapshot));
+                }
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public long getThrottledLogins() {
+        return throttled.sum();
+    }
+
+    @Override
+    public long getRejectedRequests() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-15s %-8s %10s %10s %10s %10s %10s %10s%n",
+                "Operation", "Outcome", "Count", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (OperationStats stats : getOperations()) {
+            report.append(String.format("%-15s %-8s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    stats.getOperation(), stats.getOutcome(), stats.getCount(), stats.getMeanMicros(),
+                    stats.getP50Micros(), stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros()));
+        }
+        report.append("Throttled logins: ").append(getThrottledLogins())
+                .append(", rejected requests: ").append(getRejectedRequests()).append(System.lineSeparator());
+        report.append("User cache hits: ").append(getCacheHits())
+                .append(", misses: ").append(getCacheMisses())
+                .append(", evictions: ").append(getCacheEvictions()).append(System.lineSeparator());
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < successes.length; i++) {
+            successes[i].reset();
+            failures[i].reset();
+        }
+        throttled.reset();
+        rejected.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheEvictions.reset();
+    }
+
+    /**
+     * The count and latencies of one operation and outcome, in microseconds.
+     */
+    public static final class OperationStats {
+        private final String operation;
+        private final String outcome;
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+
+        OperationStats(Operation operation, boolean success, LatencyHistogram.Snapshot snapshot) {
+            this.operation = operation.name();
+            this.outcome = success ? "success" : "failure";
+            this.count = snapshot.getCount();
+            this.meanMicros = snapshot.getMean() / 1000;
+            this.p50Micros = snapshot.getPercentile(50) / 1000.0;
+            this.p99Micros = snapshot.getPercentile(99) / 1000.0;
+            this.p999Micros = snapshot.getPercentile(99.9) / 1000.0;
+            this.maxMicros = snapshot.getMax() / 1000.0;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getP999Micros() {
+            return p999Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
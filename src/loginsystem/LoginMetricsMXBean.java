@@ -0,0 +1,71 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package loginsystem;
+
+import java.util.List;
+
+/**
+ * The management interface of {@link LoginMetrics}, registered with the
+ * platform MBean server as "loginsystem:type=LoginMetrics" so the counts and
+ * latencies can be read with JConsole or any JMX client.
+ */
+public interface LoginMetricsMXBean {
+
+    /**
+     * Gets the count and latencies of each operation and outcome.
+     *
+     * @return One entry per operation and outcome that has been recorded.
+     */
+    List<LoginMetrics.OperationStats> getOperations();
+
+    /**
+     * Gets the number of logins turned away by the throttle.
+     *
+     * @return The number of throttled logins.
+     */
+    long getThrottledLogins();
+
+    /**
+     * Gets the number of logins and registrations refused because the
+     * hashing pool's queue was full.
+     *
+     * @return The number of rejected requests.
+     */
+    long getRejectedRequests();
+
+    /**
+     * Gets the number of lookups that found a user in a user cache, summed
+     * over every cache of the process.
+     *
+     * @return The number of cache hits.
+     */
+    long getCacheHits();
+
+    /**
+     * Gets the number of lookups that found no user in a user cache.
+     *
+     * @return The number of cache misses.
+     */
+    long getCacheMisses();
+
+    /**
+     * Gets the number of users evicted from a user cache to make room for others.
+     *
+     * @return The number of cache evictions.
+     */
+    long getCacheEvictions();
+
+    /**
+     * Gets every count and latency as text.
+     *
+     * @return The report.
+     */
+    String getReport();
+
+    /**
+     * Clears every count and latency.
+     */
+    void reset();
+}
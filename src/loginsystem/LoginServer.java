@@ -0,0 +1,286 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless front end to {@link LoginSystem} over a line protocol.
+ *
+ * Each request is one line of tab-separated fields in UTF-8, and each
+ * response is one line:
+ * <pre>
+ * EXISTS username                                    YES | NO
+ * LOGIN username password                            SUCCESS token | UNKNOWN_USER | WRONG_PASSWORD | THROTTLED | BUSY
+ * SESSION token                                      VALID username | INVALID
+ * LOGOUT token                                       OK | INVALID
+ * REGISTER first last username password email        OK | REFUSED | BUSY | ERROR
+ * QUIT
+ * </pre>
+ * Malformed requests are answered with {@code ERROR} and a message. A
+ * successful login starts a session; later requests can prove who the
+ * client is with the session token instead of the password.
+ *
+ * Every connection is served by its own virtual thread when the runtime has
+ * them (Java 21 and later), so idle and slow clients cost little memory;
+ * older runtimes fall back to a cached pool of platform threads. Password
+ * hashing itself still runs on the login system's bounded hashing pool, and
+ * BUSY is answered when that pool is full.
+ */
+public final class LoginServer implements AutoCloseable {
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final LoginSystem loginSystem;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final int idleTimeoutMillis;
+    private volatile boolean closed;
+
+    /**
+     * Opens the server socket. Connections are not accepted until {@link #serve()} is called.
+     *
+     * @param loginSystem       The login system to serve.
+     * @param address           The address to listen on.
+     * @param port              The port to listen on, or 0 for any free port.
+     * @param idleTimeoutMillis How long a connection may wait between requests, or 0 for no limit.
+     * @throws IOException If the port cannot be bound.
+     */
+    public LoginServer(LoginSystem loginSystem, InetAddress address, int port, int idleTimeoutMillis) throws IOException {
+        this.loginSystem = loginSystem;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.serverSocket = new ServerSocket(port, 1024, address);
+        this.connections = newConnectionExecutor();
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, or a cached
+     * thread pool if the runtime has no virtual threads. The project still
+     * compiles for older releases, so the factory is looked up reflectively.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "login-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed. After a failed accept,
+     * such as when the process is out of file descriptors, the server waits
+     * before trying again, twice as long after each failure in a row up to a
+     * second, so it neither spins nor floods the error output.
+     */
+    public void serve() {
+        long backoffMillis = 0;
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                backoffMillis = 0;
+            } catch (IOException e) {
+                if (closed || serverSocket.isClosed()) {
+                    break;
+                }
+                backoffMillis = Math.min(MAX_ACCEPT_BACKOFF_MILLIS, Math.max(MIN_ACCEPT_BACKOFF_MILLIS, backoffMillis * 2));
+                System.err.println("An error occurred while accepting a connection, retrying in " + backoffMillis + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            try {
+                connections.execute(() -> handle(socket));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(socket); // Closing down
+            }
+        }
+    }
+
+    /**
+     * Serves the requests of one connection until the client quits or disconnects.
+     */
+    private void handle(Socket socket) {
+        try (socket;
+                Reader in = new InputStreamReader(new BufferedInputStream(socket.getInputStream()), StandardCharsets.UTF_8);
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(idleTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            String source = socket.getInetAddress().getHostAddress();
+            StringBuilder line = new StringBuilder();
+            while (readLine(in, line)) {
+                if (line.toString().equals("QUIT")) {
+                    break;
+                }
+                out.write(respond(line.toString(), source));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (SocketTimeoutException | SocketException e) {
+            // Idle or disconnected client
+        } catch (IOException e) {
+            System.err.println("An error occurred while serving a connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads one line, without the line terminator, into the given builder.
+     *
+     * @return False if the stream ended before a line started.
+     * @throws IOException If the line is longer than the protocol allows.
+     */
+    private static boolean readLine(Reader in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return true;
+            }
+            if (line.length() == MAX_LINE_LENGTH) {
+                throw new IOException("Request line too long");
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0;
+    }
+
+    /**
+     * Handles one request line.
+     *
+     * @param request The request, without the line terminator.
+     * @param source  The client's address, for throttling logins.
+     * @return The response, without the line terminator.
+     */
+    String respond(String request, String source) {
+        String[] fields = request.split("\t", -1);
+        switch (fields[0]) {
+            case "EXISTS":
+                if (fields.length != 2) {
+                    return "ERROR usage: EXISTS username";
+                }
+                return loginSystem.isRegistered(fields[1]) ? "YES" : "NO";
+            case "LOGIN":
+                if (fields.length != 3) {
+                    return "ERROR usage: LOGIN username password";
+                }
+                try {
+                    AuthResult result = loginSystem.authenticateAsync(fields[1], fields[2], source).join();
+                    if (result == AuthResult.SUCCESS) {
+                        return "SUCCESS\t" + loginSystem.startSession(fields[1]);
+                    }
+                    return result == AuthResult.REJECTED ? "BUSY" : result.name();
+                } catch (CompletionException e) {
+                    System.err.println("An error occurred while reading the user: " + e.getCause().getMessage());
+                    return "ERROR internal error";
+                }
+            case "SESSION": {
+                if (fields.length != 2) {
+                    return "ERROR usage: SESSION token";
+                }
+                String username = loginSystem.validateSession(fields[1]);
+                return username != null ? "VALID\t" + username : "INVALID";
+            }
+            case "LOGOUT":
+                if (fields.length != 2) {
+                    return "ERROR usage: LOGOUT token";
+                }
+                return loginSystem.logout(fields[1]) ? "OK" : "INVALID";
+            case "REGISTER":
+                if (fields.length != 6) {
+                    return "ERROR usage: REGISTER first last username password email";
+                }
+                try {
+                    return loginSystem.registerUserAsync(fields[1], fields[2], fields[3], fields[4], fields[5]).join() ? "OK" : "REFUSED";
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RejectedExecutionException) {
+                        return "BUSY";
+                    }
+                    System.err.println("An error occurred while registering the user: " + e.getCause().getMessage());
+                    return "ERROR the user could not be saved";
+                }
+            default:
+                return "ERROR unknown command";
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(serverSocket);
+        connections.shutdownNow();
+        try {
+            connections.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing more to do
+        }
+    }
+
+    /**
+     * Runs the server on the shared login system. The address and port are
+     * read from loginsystem.server.host (default 127.0.0.1) and
+     * loginsystem.server.port (default 8123), or from the arguments.
+     *
+     * @param args The optional port and host.
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("loginsystem.server.port", 8123);
+        String host = args.length > 1 ? args[1] : System.getProperty("loginsystem.server.host", "127.0.0.1");
+        int idleTimeout = Integer.getInteger("loginsystem.server.idleTimeoutMillis", 60_000);
+        try {
+            LoginServer server = new LoginServer(LoginSystem.getInstance(), InetAddress.getByName(host), port, idleTimeout);
+            System.out.println("Login server listening on " + host + ":" + server.getPort());
+            server.serve();
+        } catch (IOException e) {
+            System.err.println("An error occurred while starting the server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
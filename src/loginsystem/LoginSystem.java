@@ -5,43 +5,561 @@
 package loginsystem;
 
 import java.io.*;
-import java.security.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 /**
  * @author Mukarram
  * Represents a login system that manages user registration and authentication.
+ * A LoginSystem is safe to use from many threads: lookups and authentication
+ * read the user store without locking, and registrations are atomic per username.
  */
-public class LoginSystem {
-    private Map<String, User> users = new HashMap<>();
-    private final String filePath = "users.txt"; // Updated file path
-    private final String delimiter = ";";
-    private final String dictBadPassFilePath = "dictbadpass.txt"; // Path to the dictionary of bad passwords
+public class LoginSystem implements AutoCloseable {
+    private final UserStore users;
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor hashingPool; // Runs the asynchronous logins and registrations
+    private final LoginThrottle throttle; // Null if logins are not throttled
+    private final SessionCache sessions;
+    private static final String dictBadPassFilePath = "dictbadpass.txt"; // Path to the dictionary of bad passwords
+    private static final String dictBadPassIndexPath = "dictbadpass.bin"; // Optional sorted binary index of the dictionary
+    private static final String dictBadPassFilterPath = "dictbadpass.bloom"; // Bloom filter sidecar for the dictionary
+    private static final int BULK_CHUNK_SIZE = 4096; // Records validated, hashed and written together by registerUsers
+
+    /**
+     * Holds the bad password filter shared by all LoginSystem instances.
+     * The filter is opened the first time a password is checked.
+     */
+    private static final class BadPasswords {
+        static final BadPasswordFilter FILTER;
+        static final IOException ERROR; // Why the filter could not be opened, or null
+
+        static {
+            double falsePositiveRate = Double.parseDouble(System.getProperty("loginsystem.badpass.fpp", "0.01"));
+            BadPasswordFilter filter = null;
+            IOException error = null;
+            try {
+                filter = BadPasswordFilter.open(dictBadPassFilePath, dictBadPassIndexPath, dictBadPassFilterPath, falsePositiveRate);
+            } catch (IOException e) {
+                System.err.println("An error occurred while reading from the file: " + e.getMessage());
+                error = e;
+            }
+            FILTER = filter;
+            ERROR = error;
+        }
+    }
 
     /**
      * Checks if a password is listed in the "dictbadpass.txt" file.
      *
      * @param password The password to check.
      * @return True if the password is found in the list of invalid passwords, otherwise false.
+     * @throws UncheckedIOException If the dictionary cannot be read. No
+     *         password is accepted without the check.
      */
-    private boolean isPasswordInvalid(String password) {
-        try (BufferedReader br = new BufferedReader(new FileReader(dictBadPassFilePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.equals(password)) {
-                    return true; // Password is found in the list of invalid passwords
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+    boolean isPasswordInvalid(String password) { // Package-private for the benchmarks
+        BadPasswordFilter filter = BadPasswords.FILTER;
+        if (filter == null) {
+            throw new UncheckedIOException("The bad password dictionary could not be loaded", BadPasswords.ERROR);
         }
-        return false; // Password is not found in the list of invalid passwords
+        LoginEvents.DictionaryCheck event = new LoginEvents.DictionaryCheck();
+        event.begin();
+        long start = LoginMetrics.start();
+        boolean invalid = filter.isBadPassword(password);
+        LoginMetrics.record(LoginMetrics.Operation.PASSWORD_CHECK, start, !invalid);
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = invalid ? "listed" : "not listed";
+            event.commit();
+        }
+        return invalid;
+    }
+
+    /**
+     * Holds the LoginSystem shared by the login and registration frames.
+     */
+    private static final class Shared {
+        static final LoginSystem INSTANCE = new LoginSystem();
     }
 
     /**
      * Constructs a new LoginSystem and loads existing user data from file.
      */
     public LoginSystem() {
-        loadUsersFromFile();
+        this(openDefaultStore());
+    }
+
+    /**
+     * Constructs a new LoginSystem on top of the given user store.
+     *
+     * @param users The store holding the registered users.
+     */
+    public LoginSystem(UserStore users) {
+        this(users, createDefaultHasher());
+    }
+
+    /**
+     * Constructs a new LoginSystem on top of the given user store and hasher.
+     *
+     * @param users  The store holding the registered users.
+     * @param hasher The hasher for new passwords and stored hashes.
+     */
+    public LoginSystem(UserStore users, PasswordHasher hasher) {
+        this(users, hasher, LoginThrottle.fromProperties());
+    }
+
+    /**
+     * Constructs a new LoginSystem on top of the given user store, hasher and throttle.
+     *
+     * @param users    The store holding the registered users.
+     * @param hasher   The hasher for new passwords and stored hashes.
+     * @param throttle The limits on login attempts, or null to not throttle logins.
+     */
+    public LoginSystem(UserStore users, PasswordHasher hasher, LoginThrottle throttle) {
+        this.users = users;
+        this.hasher = hasher;
+        this.throttle = throttle;
+        this.sessions = new SessionCache(Long.getLong("loginsystem.session.ttlMillis", 30 * 60_000),
+                Integer.getInteger("loginsystem.session.max", 100_000),
+                Integer.getInteger("loginsystem.session.maxPerUser", 16));
+        this.hashingPool = createHashingPool(
+                Integer.getInteger("loginsystem.auth.threads", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("loginsystem.auth.queueSize", 1024));
+    }
+
+    /**
+     * Creates the pool that hashes passwords for the asynchronous methods.
+     * It has a fixed number of threads and a bounded queue; work submitted
+     * while the queue is full is rejected rather than queued without limit.
+     *
+     * @param threads   The number of hashing threads.
+     * @param queueSize The most requests waiting for a thread.
+     * @return The pool.
+     */
+    private static ThreadPoolExecutor createHashingPool(int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "login-hash-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates the password hasher picked by the system properties.
+     * "loginsystem.hash" is "pbkdf2" (the default) or "sha256". PBKDF2 uses
+     * "loginsystem.hash.iterations" iterations, or if
+     * "loginsystem.hash.targetMillis" is set, the count that makes one hash
+     * take that long on this machine. Hashes of the other kind still verify.
+     *
+     * @return The hasher.
+     */
+    private static PasswordHasher createDefaultHasher() {
+        Long targetMillis = Long.getLong("loginsystem.hash.targetMillis");
+        int iterations;
+        if (targetMillis != null) {
+            iterations = Pbkdf2PasswordHasher.calibrate(targetMillis);
+            System.out.println("Calibrated PBKDF2 to " + iterations + " iterations for " + targetMillis + " ms");
+        } else {
+            iterations = Integer.getInteger("loginsystem.hash.iterations", Pbkdf2PasswordHasher.DEFAULT_ITERATIONS);
+        }
+        PasswordHasher pbkdf2 = new Pbkdf2PasswordHasher(iterations);
+        PasswordHasher sha256 = new Sha256PasswordHasher();
+        switch (System.getProperty("loginsystem.hash", "pbkdf2")) {
+            case "pbkdf2":
+                return new DelegatingPasswordHasher(pbkdf2, sha256);
+            case "sha256":
+                return new DelegatingPasswordHasher(sha256, pbkdf2);
+            default:
+                throw new IllegalArgumentException("Unknown password hash: " + System.getProperty("loginsystem.hash"));
+        }
+    }
+
+    /**
+     * Opens the user store picked by the system properties:
+     * "loginsystem.store" is "file" (the default), "kv", "wal" or "memory", and
+     * "loginsystem.userFile" names the file ("users.txt" by default, a ".bin"
+     * file is stored in the binary format). The "kv" store only keeps an
+     * index of the users in memory and reads them on demand, caching up to
+     * "loginsystem.cache.size" recently used users (10,000 by default, per
+     * shard). The "wal" store keeps a snapshot and a write-ahead log, see
+     * {@link WalUserStore}. With "loginsystem.shards" above
+     * one, the users are split across that many files, see
+     * {@link ShardedUserStore}; the shards are loaded in parallel at startup,
+     * or on first use if "loginsystem.shards.lazy" is true, in which case a
+     * filter of each shard's usernames answers most unknown usernames without
+     * loading the shard.
+     *
+     * @return The store.
+     * @throws UncheckedIOException If the store's files cannot be opened.
+     */
+    static UserStore openDefaultStore() {
+        String kind = System.getProperty("loginsystem.store", "file");
+        String filePath = System.getProperty("loginsystem.userFile", "users.txt");
+        int shardCount = Integer.getInteger("loginsystem.shards", 1);
+        if (kind.equals("memory")) {
+            return openStore(kind, filePath);
+        }
+        if (shardCount <= 1) {
+            int stored;
+            try {
+                stored = ShardedUserStore.readShardCount(filePath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the user store " + filePath, e);
+            }
+            if (stored > 0) {
+                throw new UncheckedIOException("Could not open the user store " + filePath,
+                        new IOException("The user store " + filePath + " has " + stored + " shards; set loginsystem.shards to " + stored));
+            }
+            return openStore(kind, filePath);
+        }
+        boolean lazy = Boolean.getBoolean("loginsystem.shards.lazy");
+        // A lazily opened shard skips loading for usernames its filter rules out
+        ShardedUserStore sharded = new ShardedUserStore(shardCount, filePath, shardFile -> openStore(kind, shardFile), lazy);
+        if (!lazy) {
+            sharded.openAll();
+        }
+        return sharded;
+    }
+
+    /**
+     * Gets the user files of the store picked by the system properties, see
+     * {@link #openDefaultStore()}: the user file, or the file of every shard.
+     *
+     * @return The files, some of which may not exist yet.
+     */
+    static List<String> defaultUserFiles() {
+        String filePath = System.getProperty("loginsystem.userFile", "users.txt");
+        int shardCount = Integer.getInteger("loginsystem.shards", 1);
+        if (shardCount <= 1) {
+            return List.of(filePath);
+        }
+        List<String> files = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            files.add(ShardedUserStore.shardFile(filePath, i, shardCount));
+        }
+        return files;
+    }
+
+    /**
+     * Opens a user store.
+     *
+     * @param kind     The kind of store: "file", "kv", "wal" or "memory".
+     * @param filePath The file of the store.
+     * @return The store.
+     * @throws UncheckedIOException If the store's files cannot be opened. The
+     *         system does not start without its users rather than accept
+     *         registrations it would lose.
+     */
+    static UserStore openStore(String kind, String filePath) {
+        long start = LoginMetrics.start();
+        boolean opened = false;
+        try {
+            UserStore store = openStoreOfKind(kind, filePath);
+            opened = true;
+            return store;
+        } finally {
+            LoginMetrics.record(LoginMetrics.Operation.OPEN_STORE, start, opened);
+        }
+    }
+
+    private static UserStore openStoreOfKind(String kind, String filePath) {
+        boolean fsync = Boolean.getBoolean("loginsystem.log.fsync");
+        switch (kind) {
+            case "memory":
+                return new InMemoryUserStore();
+            case "kv":
+                try {
+                    return new KeyValueUserStore(filePath, fsync, Integer.getInteger("loginsystem.cache.size", 10_000));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open the user store " + filePath, e);
+                }
+            case "file":
+                return new FileUserStore(filePath, UserFileFormat.forFile(filePath),
+                        Integer.getInteger("loginsystem.log.batchSize", 256),
+                        Long.getLong("loginsystem.log.maxDelayMillis", 2),
+                        fsync);
+            case "wal":
+                try {
+                    // A write-ahead log is only worth having if it reaches the disk
+                    return new WalUserStore(filePath,
+                            Integer.getInteger("loginsystem.log.batchSize", 256),
+                            Long.getLong("loginsystem.log.maxDelayMillis", 2),
+                            Boolean.parseBoolean(System.getProperty("loginsystem.log.fsync", "true")),
+                            Long.getLong("loginsystem.wal.compactIntervalMillis", 60_000),
+                            Long.getLong("loginsystem.wal.compactMinRecords", 10_000));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open the user store " + filePath, e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown user store: " + kind);
+        }
+    }
+
+    /**
+     * Gets the LoginSystem shared by the whole application, so the user file
+     * is only loaded once.
+     *
+     * @return The shared LoginSystem.
+     */
+    public static LoginSystem getInstance() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Checks if a user with the given username is registered.
+     *
+     * @param username The username to check.
+     * @return True if the username is registered, otherwise false.
+     */
+    public boolean isRegistered(String username) {
+        return users.exists(username);
+    }
+
+    /**
+     * Checks a username and password against the registered users. After a
+     * successful login, a hash made with an older scheme or a lower cost is
+     * replaced by a fresh one in the background.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @return True if the user exists and the password matches, otherwise false.
+     */
+    public boolean authenticate(String username, String password) {
+        return authenticate(username, password, null) == AuthResult.SUCCESS;
+    }
+
+    /**
+     * Checks a username and password on the calling thread, unless the
+     * username or the source is throttled.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @param source   Where the attempt comes from, such as a client address, or null if unknown.
+     * @return The outcome; {@link AuthResult#THROTTLED} if there were too many attempts.
+     */
+    public AuthResult authenticate(String username, String password, String source) {
+        if (throttle != null && throttle.isThrottled(username, source)) {
+            LoginMetrics.countThrottled();
+            return AuthResult.THROTTLED;
+        }
+        return check(username, password, source);
+    }
+
+    /**
+     * Checks a username and password on the hashing pool, so the calling
+     * thread (for example the Swing event dispatch thread) is not blocked.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @return A future with the outcome; {@link AuthResult#REJECTED} if the
+     *         pool's queue is full.
+     */
+    public CompletableFuture<AuthResult> authenticateAsync(String username, String password) {
+        return authenticateAsync(username, password, null);
+    }
+
+    /**
+     * Checks a username and password on the hashing pool, unless the
+     * username or the source is throttled. Throttled attempts are answered
+     * at once, without queueing for the pool.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @param source   Where the attempt comes from, such as a client address, or null if unknown.
+     * @return A future with the outcome; {@link AuthResult#THROTTLED} if there
+     *         were too many attempts, {@link AuthResult#REJECTED} if the pool's
+     *         queue is full.
+     */
+    public CompletableFuture<AuthResult> authenticateAsync(String username, String password, String source) {
+        if (throttle != null && throttle.isThrottled(username, source)) {
+            LoginMetrics.countThrottled();
+            return CompletableFuture.completedFuture(AuthResult.THROTTLED);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> check(username, password, source), hashingPool);
+        } catch (RejectedExecutionException e) {
+            LoginMetrics.countRejected();
+            return CompletableFuture.completedFuture(AuthResult.REJECTED);
+        }
+    }
+
+    /**
+     * Logs a user in: checks the username and password and starts a session.
+     * Later requests can be authenticated with {@link #validateSession}
+     * instead of the password.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @param source   Where the attempt comes from, such as a client address, or null if unknown.
+     * @return The session token, or null if the login failed.
+     */
+    public String login(String username, String password, String source) {
+        return authenticate(username, password, source) == AuthResult.SUCCESS ? startSession(username) : null;
+    }
+
+    /**
+     * Logs a user in on the hashing pool.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @param source   Where the attempt comes from, such as a client address, or null if unknown.
+     * @return A future with the session token, or with null if the login failed.
+     */
+    public CompletableFuture<String> loginAsync(String username, String password, String source) {
+        return authenticateAsync(username, password, source)
+                .thenApply(result -> result == AuthResult.SUCCESS ? startSession(username) : null);
+    }
+
+    /**
+     * Starts a session for a user who has just been authenticated.
+     *
+     * @param username The username.
+     * @return The session token.
+     */
+    String startSession(String username) {
+        return sessions.create(username);
+    }
+
+    /**
+     * Checks a session token and extends the session.
+     *
+     * @param token The session token.
+     * @return The username the session is for, or null if the token is unknown or has expired.
+     */
+    public String validateSession(String token) {
+        return sessions.validate(token);
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token The session token.
+     * @return True if the session existed, otherwise false.
+     */
+    public boolean logout(String token) {
+        return sessions.invalidate(token);
+    }
+
+    /**
+     * Checks a username and password on the calling thread.
+     *
+     * @param username The username entered by the user.
+     * @param password The password entered by the user.
+     * @param source   Where the attempt comes from, or null if unknown.
+     * @return The outcome.
+     */
+    private AuthResult check(String username, String password, String source) {
+        LoginEvents.Authentication event = new LoginEvents.Authentication();
+        event.begin();
+        long start = LoginMetrics.start();
+        User user = lookUp(username);
+        String encoded = user != null ? user.getPassword() : null; // Rebuilt from the packed hash, so fetched once
+        AuthResult result = match(user, encoded, password);
+        if (result == AuthResult.SUCCESS && hasher.needsRehash(encoded)) {
+            rehash(user, password);
+        } else if (result != AuthResult.SUCCESS && throttle != null) {
+            throttle.recordFailure(username, source);
+        }
+        LoginMetrics.record(LoginMetrics.Operation.AUTHENTICATE, start, result == AuthResult.SUCCESS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.usernameHash = LoginEvents.usernameHash(username);
+            event.outcome = result.name();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Gets a user from the store for a login.
+     *
+     * @param username The username entered by the user.
+     * @return The user, or null if the username is not registered.
+     */
+    private User lookUp(String username) {
+        LoginEvents.StoreLookup event = new LoginEvents.StoreLookup();
+        event.begin();
+        User user = users.get(username);
+        event.end();
+        if (event.shouldCommit()) {
+            event.usernameHash = LoginEvents.usernameHash(username);
+            event.outcome = user != null ? "found" : "not found";
+            event.commit();
+        }
+        return user;
+    }
+
+    /**
+     * Checks a password against a stored user.
+     *
+     * @param user     The stored user, or null if the username is not registered.
+     * @param password The password entered by the user.
+     * @return The outcome.
+     */
+    private AuthResult match(User user, String password) {
+        return match(user, user != null ? user.getPassword() : null, password);
+    }
+
+    /**
+     * Checks a password against a stored user whose hash has been fetched.
+     *
+     * @param user     The stored user, or null if the username is not registered.
+     * @param encoded  The user's stored hash, or null if there is no user.
+     * @param password The password entered by the user.
+     * @return The outcome.
+     */
+    private AuthResult match(User user, String encoded, String password) {
+        if (user == null) {
+            return AuthResult.UNKNOWN_USER;
+        }
+        LoginEvents.PasswordHash event = new LoginEvents.PasswordHash();
+        event.begin();
+        boolean matches = hasher.matches(password, encoded);
+        event.end();
+        if (event.shouldCommit()) {
+            event.usernameHash = LoginEvents.usernameHash(user.getUsername());
+            event.outcome = matches ? "match" : "mismatch";
+            event.commit();
+        }
+        return matches ? AuthResult.SUCCESS : AuthResult.WRONG_PASSWORD;
+    }
+
+    /**
+     * Checks many usernames and passwords in parallel, for example for an
+     * offline audit. Unlike {@link #authenticate}, stored hashes are never
+     * upgraded.
+     *
+     * @param credentials The usernames and passwords to check.
+     * @return The outcome of each credential, in the same order.
+     */
+    public List<AuthResult> verify(List<Credential> credentials) {
+        return credentials.parallelStream()
+                .map(credential -> match(users.get(credential.getUsername()), credential.getPassword()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stores a fresh hash of the user's password.
+     *
+     * @param user     The user who just logged in.
+     * @param password The password they logged in with.
+     */
+    private void rehash(User user, String password) {
+        User upgraded = new User(user.getFirstName(), user.getLastName(), user.getUsername(), hasher.hash(password), user.getEmail());
+        users.put(upgraded).exceptionally(e -> {
+            System.err.println("Could not upgrade the password hash of " + user.getUsername() + ": " + e.getMessage());
+            return null;
+        });
     }
 
     /**
@@ -52,24 +570,177 @@ public class LoginSystem {
      * @param username  The username chosen by the user.
      * @param password  The password chosen by the user.
      * @param email     The email address of the user.
-     * @return True if registration is successful, false otherwise.
+     * @return True if the user has been registered and stored, false if
+     *         registration is refused or the user could not be written.
      */
     public boolean registerUser(String firstName, String lastName, String username, String password, String email) {
-        if (!isUsernameUnique(username) || containsDelimiter(firstName, lastName, username, password, email)) {
-            return false;
+        CompletableFuture<Boolean> result = register(firstName, lastName, username, password, email);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            return false; // The write error has already been reported and the user was not kept
+        }
+    }
+
+    /**
+     * Registers a new user with the given information on the hashing pool,
+     * without blocking the calling thread.
+     *
+     * @param firstName The first name of the user.
+     * @param lastName  The last name of the user.
+     * @param username  The username chosen by the user.
+     * @param password  The password chosen by the user.
+     * @param email     The email address of the user.
+     * @return A future that completes with false if registration is refused, or
+     *         with true once the new user has been written to the file. It fails
+     *         with a RejectedExecutionException if the pool's queue is full.
+     */
+    public CompletableFuture<Boolean> registerUserAsync(String firstName, String lastName, String username, String password, String email) {
+        try {
+            return CompletableFuture.supplyAsync(() -> register(firstName, lastName, username, password, email), hashingPool)
+                    .thenCompose(written -> written);
+        } catch (RejectedExecutionException e) {
+            LoginMetrics.countRejected();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Validates and hashes a new user on the calling thread and hands it to
+     * the user store, timing it until the user has been stored.
+     *
+     * @return A future that completes with false if registration is refused, or
+     *         with true once the new user has been stored.
+     */
+    private CompletableFuture<Boolean> register(String firstName, String lastName, String username, String password, String email) {
+        LoginEvents.Registration event = new LoginEvents.Registration();
+        event.begin();
+        long start = LoginMetrics.start();
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Boolean> result;
+        try {
+            result = validateAndStore(firstName, lastName, username, password, email);
+        } catch (UncheckedIOException e) {
+            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+            result = CompletableFuture.failedFuture(e); // Refused, as the password could not be checked
+        }
+        result.whenComplete((added, e) -> {
+            // Often runs on the thread that wrote the user, so the caller is recorded in a field
+            LoginMetrics.record(LoginMetrics.Operation.REGISTER, start, e == null && added);
+            event.end();
+            if (event.shouldCommit()) {
+                event.callerThread = caller;
+                event.usernameHash = LoginEvents.usernameHash(username);
+                event.outcome = e != null ? "failed" : added ? "registered" : "refused";
+                event.commit();
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Boolean> validateAndStore(String firstName, String lastName, String username, String password, String email) {
+        if (!isUsernameUnique(username) || !canStore(firstName, lastName, username, password, email)) {
+            return CompletableFuture.completedFuture(false);
         }
 
         if (isPasswordInvalid(password)){
             System.err.println("Invalid password. Please choose a different one.");
-            return false; // Registration failed due to invalid password
+            return CompletableFuture.completedFuture(false); // Registration failed due to invalid password
         }
 
         // Encrypt the password
         String encryptedPassword = encryptPassword(password);
         User newUser = new User(firstName, lastName, username, encryptedPassword, email);
-        users.put(username, newUser);
-        saveUserToFile(newUser);
-        return true;
+        return users.putIfAbsent(newUser);
+    }
+
+    /**
+     * Registers many users at once, for example when migrating accounts.
+     * Records are read in chunks; each chunk is validated and hashed in
+     * parallel and its users are handed to the user store in one batch, so
+     * they are written in a single sequential pass.
+     *
+     * @param records The users to register, with plain-text passwords.
+     * @return The outcome of each record, in the same order.
+     * @throws UncheckedIOException If the bad password dictionary cannot be read.
+     */
+    public List<RegistrationResult> registerUsers(Iterator<User> records) {
+        List<RegistrationResult> results = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<User> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        while (records.hasNext()) {
+            chunk.add(records.next());
+            if (chunk.size() == BULK_CHUNK_SIZE || !records.hasNext()) {
+                registerChunk(chunk, seen, results);
+                chunk.clear();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Registers one chunk of a bulk registration.
+     *
+     * @param chunk   The records of the chunk.
+     * @param seen    The usernames of every earlier record of the registration.
+     * @param results The list to add the outcome of each record to.
+     */
+    private void registerChunk(List<User> chunk, Set<String> seen, List<RegistrationResult> results) {
+        int size = chunk.size();
+        RegistrationResult[] outcomes = new RegistrationResult[size];
+        for (int i = 0; i < size; i++) {
+            if (!seen.add(chunk.get(i).getUsername())) {
+                outcomes[i] = RegistrationResult.DUPLICATE;
+            }
+        }
+        User[] hashed = new User[size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            if (outcomes[i] != null) {
+                return;
+            }
+            User record = chunk.get(i);
+            if (!fitsFields(record.getFirstName(), record.getLastName(), record.getUsername(), record.getPassword(), record.getEmail())) {
+                outcomes[i] = RegistrationResult.FIELD_TOO_LONG;
+            } else if (users.exists(record.getUsername())) {
+                outcomes[i] = RegistrationResult.USERNAME_TAKEN;
+            } else if (!users.canStore(record)) {
+                outcomes[i] = RegistrationResult.UNSUPPORTED_CHARACTER;
+            } else if (isPasswordInvalid(record.getPassword())) {
+                outcomes[i] = RegistrationResult.BAD_PASSWORD;
+            } else {
+                hashed[i] = new User(record.getFirstName(), record.getLastName(), record.getUsername(),
+                        encryptPassword(record.getPassword()), record.getEmail());
+            }
+        });
+
+        List<User> batch = new ArrayList<>(size);
+        for (User user : hashed) {
+            if (user != null) {
+                batch.add(user);
+            }
+        }
+        boolean[] added = null;
+        boolean[] failed = null; // Null if the whole batch was written or none of it
+        try {
+            added = users.putAllIfAbsent(batch).join();
+        } catch (CompletionException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getCause().getMessage());
+            if (e.getCause() instanceof PartialWriteException) {
+                added = ((PartialWriteException) e.getCause()).getAdded();
+                failed = ((PartialWriteException) e.getCause()).getFailed();
+            }
+        }
+        for (int i = 0, b = 0; i < size; i++) {
+            if (hashed[i] != null) {
+                if (added == null || failed != null && failed[b]) {
+                    outcomes[i] = RegistrationResult.WRITE_FAILED;
+                } else {
+                    outcomes[i] = added[b] ? RegistrationResult.REGISTERED : RegistrationResult.USERNAME_TAKEN;
+                }
+                b++;
+            }
+            results.add(outcomes[i]);
+        }
     }
 
     /**
@@ -79,76 +750,76 @@ public class LoginSystem {
      * @return True if the username is unique, false otherwise.
      */
     private boolean isUsernameUnique(String username) {
-        return !users.containsKey(username);
+        return !users.exists(username);
     }
 
     /**
-     * Checks if any of the given strings contain the delimiter.
+     * Checks if the user store can hold the given fields as entered: that no
+     * field is too long, and for example that none of them contains the
+     * delimiter of a text user file.
      *
-     * @param args The strings to check.
-     * @return True if any string contains the delimiter, false otherwise.
+     * @param firstName The first name of the user.
+     * @param lastName  The last name of the user.
+     * @param username  The username chosen by the user.
+     * @param password  The password chosen by the user.
+     * @param email     The email address of the user.
+     * @return True if the fields can be stored, false otherwise.
      */
-    private boolean containsDelimiter(String... args) {
-        for (String arg : args) {
-            if (arg.contains(delimiter)) {
-                System.err.println("Input cannot contain the delimiter '" + delimiter + "'");
-                return true;
-            }
+    private boolean canStore(String firstName, String lastName, String username, String password, String email) {
+        if (!fitsFields(firstName, lastName, username, password, email)) {
+            System.err.println("Input is too long");
+            return false;
         }
-        return false;
+        if (!users.canStore(new User(firstName, lastName, username, password, email))) {
+            System.err.println("Input contains a character the user file cannot store");
+            return false;
+        }
+        return true;
     }
 
     /**
-     * Saves user data to the file.
+     * Checks that no field is longer than a user can be registered with,
+     * before anything is hashed or built from the fields.
      *
-     * @param user The user to save.
+     * @return True if every field fits, false otherwise.
      */
-    private void saveUserToFile(User user) {
-        try (PrintWriter out = new PrintWriter(new FileWriter(filePath, true))) {
-            // Assuming User class has methods: getFirstName(), getLastName(), getUsername(), getPassword(), getEmail()
-            out.println(user.getFirstName() + delimiter + user.getLastName() + delimiter + user.getUsername() + delimiter + user.getPassword() + delimiter + user.getEmail());
-        } catch (IOException e) {
-            System.err.println("An error occurred while writing to the file: " + e.getMessage());
-        }
+    private static boolean fitsFields(String firstName, String lastName, String username, String password, String email) {
+        return User.fits(firstName) && User.fits(lastName) && User.fits(username) && User.fits(password) && User.fits(email);
     }
 
     /**
-     * Loads user data from the file.
+     * Writes any pending users to storage and closes it.
      */
-    private void loadUsersFromFile() {
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] userDetails = line.split(delimiter);
-                if (userDetails.length == 5) {
-                    users.put(userDetails[0], new User(userDetails[0], userDetails[1], userDetails[2], userDetails[3], userDetails[4]));
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+    @Override
+    public void close() {
+        sessions.close();
+        hashingPool.shutdown();
+        try {
+            hashingPool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        users.close();
     }
 
     /**
-     * Encrypts the given password using SHA-256 algorithm.
+     * Encrypts the given password with the configured hasher.
      *
      * @param password The password to encrypt.
      * @return The encrypted password.
      */
-    private String encryptPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(password.getBytes());
-            byte byteData[] = md.digest();
-            StringBuilder encryptedPassword = new StringBuilder();
-            for (int i = 0; i < byteData.length; ++i) {
-                encryptedPassword.append(Integer.toHexString((byteData[i] & 0xFF) | 0x100).substring(1, 3));
-            }
-            return encryptedPassword.toString();
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("Encryption error: " + e.getMessage());
-            return null;
+    String encryptPassword(String password) { // Package-private for the benchmarks
+        LoginEvents.PasswordHash event = new LoginEvents.PasswordHash();
+        event.begin();
+        long start = LoginMetrics.start();
+        String hash = hasher.hash(password);
+        LoginMetrics.record(LoginMetrics.Operation.PASSWORD_HASH, start, true);
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = "hashed";
+            event.commit();
         }
+        return hash;
     }
 
     /**
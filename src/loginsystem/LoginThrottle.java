@@ -0,0 +1,208 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Limits login attempts by counting failed logins per username and, if
+ * enabled, per source (for example a client address), each over a sliding
+ * time window. Successful logins are not counted, so a busy source of honest
+ * users, such as a load balancer or a proxy every client comes through, is
+ * only throttled if its clients keep getting their passwords wrong.
+ *
+ * Counts are kept in two fixed-size count-min sketches of atomic counters,
+ * updated with compare-and-set and never locked, so the memory used does not
+ * grow with the number of users or sources and a throttled attempt is turned
+ * away without touching the user store or hashing anything. Each counter
+ * holds the count of the current and the previous window; the sliding count
+ * is the current count plus the previous one weighted by how much of it is
+ * still inside the window. Counters of windows that have passed read as zero
+ * and are reused, so old entries expire by themselves.
+ *
+ * Keys that share counters can only make a count too high, never too low.
+ * The hash is seeded randomly, so nobody can pick usernames that collide on
+ * purpose to lock out someone else.
+ */
+public final class LoginThrottle {
+    private static final int ROWS = 2;
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (64 - 2 * COUNT_BITS)) - 1;
+
+    private final AtomicLongArray userFailures;
+    private final AtomicLongArray sourceFailures; // Null if sources are not throttled
+    private final int mask;
+    private final long seed = new SecureRandom().nextLong();
+    private final long windowMillis;
+    private final int maxUserFailures;
+    private final int maxSourceFailures;
+
+    /**
+     * Creates a throttle with all counts at zero.
+     *
+     * @param windowMillis      The length of the sliding window.
+     * @param maxUserFailures   The failed logins per username in a window after which the username is throttled.
+     * @param maxSourceFailures The failed logins per source in a window after which the source is throttled, or 0 to not throttle sources.
+     * @param width             The counters per sketch row, rounded up to a power of two.
+     */
+    public LoginThrottle(long windowMillis, int maxUserFailures, int maxSourceFailures, int width) {
+        if (windowMillis < 1 || width < 1) {
+            throw new IllegalArgumentException("Window and width must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.mask = size - 1;
+        this.userFailures = new AtomicLongArray(ROWS * size);
+        this.sourceFailures = maxSourceFailures > 0 ? new AtomicLongArray(ROWS * size) : null;
+        this.windowMillis = windowMillis;
+        this.maxUserFailures = maxUserFailures;
+        this.maxSourceFailures = maxSourceFailures;
+    }
+
+    /**
+     * Creates the throttle configured by the system properties
+     * "loginsystem.throttle.windowMillis" (60,000 by default),
+     * "loginsystem.throttle.userFailures" (10), "loginsystem.throttle.sourceFailures"
+     * (0, so sources are not throttled unless it is set) and
+     * "loginsystem.throttle.width" (65,536). Only set a source limit if each
+     * client has its own address; behind a proxy it would throttle everyone.
+     *
+     * @return The throttle, or null if "loginsystem.throttle" is false.
+     */
+    static LoginThrottle fromProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("loginsystem.throttle", "true"))) {
+            return null;
+        }
+        return new LoginThrottle(Long.getLong("loginsystem.throttle.windowMillis", 60_000),
+                Integer.getInteger("loginsystem.throttle.userFailures", 10),
+                Integer.getInteger("loginsystem.throttle.sourceFailures", 0),
+                Integer.getInteger("loginsystem.throttle.width", 1 << 16));
+    }
+
+    /**
+     * Checks if a login attempt must be turned away. Nothing is counted.
+     *
+     * @param username The username the attempt is for.
+     * @param source   Where the attempt comes from, or null if unknown.
+     * @return True if the username or the source is throttled, otherwise false.
+     */
+    public boolean isThrottled(String username, String source) {
+        long now = System.currentTimeMillis();
+        if (sourceFailures != null && source != null && estimate(sourceFailures, source, now) >= maxSourceFailures) {
+            return true;
+        }
+        return estimate(userFailures, username, now) >= maxUserFailures;
+    }
+
+    /**
+     * Counts a failed login.
+     *
+     * @param username The username the login failed for.
+     * @param source   Where the login came from, or null if unknown.
+     */
+    public void recordFailure(String username, String source) {
+        long now = System.currentTimeMillis();
+        increment(userFailures, username, now);
+        if (sourceFailures != null && source != null) {
+            increment(sourceFailures, source, now);
+        }
+    }
+
+    /**
+     * Gets the sliding count of failed logins for a username.
+     *
+     * @param username The username.
+     * @return The estimated number of failures in the last window.
+     */
+    public double getFailures(String username) {
+        return estimate(userFailures, username, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds one to a key's counters.
+     */
+    private void increment(AtomicLongArray sketch, String key, long now) {
+        long epoch = (now / windowMillis) & EPOCH_MASK;
+        long h = hash(key);
+        for (int row = 0; row < ROWS; row++) {
+            int slot = slot(h, row);
+            long current;
+            long updated;
+            do {
+                current = sketch.get(slot);
+                updated = rolled(current, epoch);
+                if ((updated & COUNT_MASK) < COUNT_MASK) {
+                    updated++;
+                }
+            } while (current != updated && !sketch.compareAndSet(slot, current, updated));
+        }
+    }
+
+    /**
+     * Gets a key's sliding count.
+     */
+    private double estimate(AtomicLongArray sketch, String key, long now) {
+        long epoch = (now / windowMillis) & EPOCH_MASK;
+        double weight = previousWeight(now);
+        long h = hash(key);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            int slot = slot(h, row);
+            min = Math.min(min, slidingCount(rolled(sketch.get(slot), epoch), weight));
+        }
+        return min;
+    }
+
+    /**
+     * Gets the counter of a hash in one row of a sketch; each row uses
+     * different bits of the hash.
+     */
+    private int slot(long h, int row) {
+        return row * (mask + 1) + ((int) (h >>> (32 * row)) & mask);
+    }
+
+    /**
+     * Gets the share of the previous window still inside the sliding window.
+     */
+    private double previousWeight(long now) {
+        return 1.0 - (double) (now % windowMillis) / windowMillis;
+    }
+
+    /**
+     * Moves a counter to the given window: the current count becomes the
+     * previous one if the counter is one window behind, and both are cleared
+     * if it is further behind.
+     */
+    private static long rolled(long counter, long epoch) {
+        long counterEpoch = counter >>> (2 * COUNT_BITS);
+        if (counterEpoch == epoch) {
+            return counter;
+        }
+        long previous = ((counterEpoch + 1) & EPOCH_MASK) == epoch ? counter & COUNT_MASK : 0;
+        return epoch << (2 * COUNT_BITS) | previous << COUNT_BITS;
+    }
+
+    private static double slidingCount(long counter, double previousWeight) {
+        return (counter & COUNT_MASK) + ((counter >>> COUNT_BITS) & COUNT_MASK) * previousWeight;
+    }
+
+    /**
+     * Hashes a key with the random seed (FNV-1a over the characters,
+     * followed by a MurmurHash3 finalizer), without allocating.
+     */
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
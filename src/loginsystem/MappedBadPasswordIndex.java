@@ -0,0 +1,173 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A bad password index kept in a memory-mapped file of sorted 64-bit
+ * fingerprints. Lookups are a binary search over the mapping, so the index
+ * costs almost no heap and its pages are shared by every JVM on the host.
+ *
+ * File layout: magic (4 bytes), version (4 bytes), entry count (8 bytes),
+ * then the fingerprints in ascending signed order, all little-endian.
+ */
+public final class MappedBadPasswordIndex implements FingerprintSet {
+    private static final int MAGIC = 0x42505744; // "BPWD"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final long count;
+
+    private MappedBadPasswordIndex(MappedByteBuffer buffer, long count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * Maps an index file written by {@link #build(String, String)}.
+     *
+     * @param filePath The index file.
+     * @return The mapped index.
+     * @throws IOException If the file cannot be mapped or is not an index file.
+     */
+    public static MappedBadPasswordIndex open(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Index file too large to map: " + filePath);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (fileSize < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a bad password index file: " + filePath);
+            }
+            long count = buffer.getLong(8);
+            if (HEADER_SIZE + count * 8 != fileSize) {
+                throw new IOException("Truncated bad password index file: " + filePath);
+            }
+            return new MappedBadPasswordIndex(buffer, count);
+        }
+    }
+
+    /**
+     * Converts a text dictionary (one password per line) into an index file.
+     *
+     * @param dictionaryPath The text dictionary to read.
+     * @param indexPath      The index file to write.
+     * @return The number of distinct fingerprints written.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static long build(String dictionaryPath, String indexPath) throws IOException {
+        long[] fingerprints = new long[1 << 16];
+        int size = 0;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(dictionaryPath), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (size == fingerprints.length) {
+                    fingerprints = Arrays.copyOf(fingerprints, size * 2);
+                }
+                fingerprints[size++] = BadPasswordIndex.fingerprint(line);
+            }
+        }
+        Arrays.sort(fingerprints, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || fingerprints[distinct - 1] != fingerprints[i]) {
+                fingerprints[distinct++] = fingerprints[i];
+            }
+        }
+
+        Path target = Paths.get(indexPath);
+        Path temp = Paths.get(indexPath + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(Integer.reverseBytes(MAGIC));
+            out.writeInt(Integer.reverseBytes(VERSION));
+            out.writeLong(Long.reverseBytes(distinct));
+            for (int i = 0; i < distinct; i++) {
+                out.writeLong(Long.reverseBytes(fingerprints[i]));
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        return distinct;
+    }
+
+    @Override
+    public boolean containsFingerprint(long fp) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long value = buffer.getLong((int) (HEADER_SIZE + mid * 8));
+            if (value < fp) {
+                low = mid + 1;
+            } else if (value > fp) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given password is in the index.
+     *
+     * @param password The password to check.
+     * @return True if the password is a known bad password, otherwise false.
+     */
+    public boolean contains(String password) {
+        return containsFingerprint(BadPasswordIndex.fingerprint(password));
+    }
+
+    /**
+     * Passes every fingerprint in the index to the given action, in order.
+     *
+     * @param action The action to run for each fingerprint.
+     */
+    public void forEachFingerprint(LongConsumer action) {
+        for (long i = 0; i < count; i++) {
+            action.accept(buffer.getLong((int) (HEADER_SIZE + i * 8)));
+        }
+    }
+
+    /**
+     * Gets the number of fingerprints in the index.
+     *
+     * @return The number of entries.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Builds an index file from the command line:
+     * {@code MappedBadPasswordIndex <dictionary.txt> <index.bin>}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: MappedBadPasswordIndex <dictionary.txt> <index.bin>");
+            System.exit(2);
+        }
+        try {
+            long start = System.nanoTime();
+            long written = build(args[0], args[1]);
+            System.out.println("Wrote " + written + " fingerprints to " + args[1] + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.err.println("An error occurred while building the index: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.IOException;
+
+/**
+ * Signals that only part of a batch of users could be written, for example
+ * because one shard of a {@link ShardedUserStore} failed while the others
+ * stored their users. It tells for each user of the batch whether it was
+ * added and whether its write failed.
+ */
+public class PartialWriteException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean[] added;
+    private final boolean[] failed;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param message The detail message.
+     * @param cause   The error of the first write that failed.
+     * @param added   For each user of the batch, true if it was added and stored.
+     * @param failed  For each user of the batch, true if its write failed.
+     */
+    public PartialWriteException(String message, Throwable cause, boolean[] added, boolean[] failed) {
+        super(message, cause);
+        this.added = added;
+        this.failed = failed;
+    }
+
+    /**
+     * Gets which users of the batch were added and stored.
+     *
+     * @return One entry per user of the batch.
+     */
+    public boolean[] getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets which users of the batch could not be written.
+     *
+     * @return One entry per user of the batch.
+     */
+    public boolean[] getFailed() {
+        return failed;
+    }
+}
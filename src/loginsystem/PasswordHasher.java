@@ -0,0 +1,57 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package loginsystem;
+
+/**
+ * Turns passwords into stored hashes and checks passwords against them.
+ * Implementations are safe to use from many threads.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Hashes a password for storage.
+     *
+     * @param password The password to hash.
+     * @return The encoded hash, including anything needed to check it later.
+     */
+    String hash(String password);
+
+    /**
+     * Checks if an encoded hash was produced by this kind of hasher.
+     *
+     * @param encoded The stored hash.
+     * @return True if this hasher can check passwords against it, otherwise false.
+     */
+    boolean supports(String encoded);
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @param password The password to check.
+     * @param encoded  The stored hash.
+     * @return True if the password matches, otherwise false.
+     */
+    boolean matches(String password, String encoded);
+
+    /**
+     * Checks if a stored hash should be replaced by a fresh one from
+     * {@link #hash(String)}, for example because its cost is below the
+     * current setting.
+     *
+     * @param encoded The stored hash.
+     * @return True if the hash should be upgraded, otherwise false.
+     */
+    boolean needsRehash(String encoded);
+
+    /**
+     * Gets how hard this kind of hash is to attack, for comparing schemes.
+     * A stored hash is never replaced by a hash of a lower strength.
+     *
+     * @return The strength; 0 for a fast hash without a salt.
+     */
+    default int getStrength() {
+        return 0;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hashes passwords with salted PBKDF2-HMAC-SHA256.
+ * The iteration count is stored in each hash, so hashes made with an older,
+ * cheaper setting still verify and can be upgraded at the next login. A
+ * stored count above {@link #MAX_ITERATIONS} is refused rather than run, so a
+ * tampered record cannot tie up a login thread. A hash with an empty salt or
+ * a hash of the wrong length never matches.
+ *
+ * Encoded form: {@code pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>}.
+ */
+public final class Pbkdf2PasswordHasher implements PasswordHasher {
+    /** The iteration count used when none is configured. */
+    public static final int DEFAULT_ITERATIONS = 210_000;
+    /** The highest iteration count made or checked, a few seconds of work. */
+    public static final int MAX_ITERATIONS = 5_000_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_SIZE = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    /**
+     * Creates a hasher that makes new hashes with the given cost.
+     *
+     * @param iterations The PBKDF2 iteration count for new hashes, at most {@link #MAX_ITERATIONS}.
+     */
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be between 1 and " + MAX_ITERATIONS + ": " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Finds the iteration count that makes one hash take about the target time
+     * on this machine.
+     *
+     * @param targetMillis The wanted time per hash in milliseconds.
+     * @return The iteration count, never below 10,000 or above {@link #MAX_ITERATIONS}.
+     */
+    public static int calibrate(long targetMillis) {
+        int probe = 20_000;
+        byte[] salt = new byte[SALT_SIZE];
+        derive("calibration".toCharArray(), salt, probe); // Warm up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            derive("calibration".toCharArray(), salt, probe);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double perIteration = (double) best / probe;
+        long iterations = (long) (targetMillis * 1_000_000 / perIteration);
+        return (int) Math.max(10_000, Math.min(MAX_ITERATIONS, iterations));
+    }
+
+    /**
+     * Gets the iteration count used for new hashes.
+     *
+     * @return The iteration count.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_SIZE];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password.toCharArray(), salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    @Override
+    public boolean supports(String encoded) {
+        return encoded != null && encoded.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean matches(String password, String encoded) {
+        Parsed parsed = Parsed.of(encoded);
+        if (parsed == null) {
+            return false;
+        }
+        byte[] actual = derive(password.toCharArray(), parsed.salt, parsed.iterations);
+        return MessageDigest.isEqual(actual, parsed.hash);
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        Parsed parsed = Parsed.of(encoded);
+        return parsed == null || parsed.iterations < iterations;
+    }
+
+    @Override
+    public int getStrength() {
+        return 1; // Salted and slow
+    }
+
+    private static byte[] derive(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * The parts of an encoded hash.
+     */
+    private static final class Parsed {
+        final int iterations;
+        final byte[] salt;
+        final byte[] hash;
+
+        private Parsed(int iterations, byte[] salt, byte[] hash) {
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        static Parsed of(String encoded) {
+            if (encoded == null || !encoded.startsWith(PREFIX)) {
+                return null;
+            }
+            String[] parts = encoded.substring(PREFIX.length()).split("\\$");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                int iterations = Integer.parseInt(parts[0]);
+                if (iterations < 1 || iterations > MAX_ITERATIONS) {
+                    return null;
+                }
+                Base64.Decoder base64 = Base64.getDecoder();
+                byte[] salt = base64.decode(parts[1]);
+                byte[] hash = base64.decode(parts[2]);
+                if (salt.length == 0 || hash.length != HASH_BITS / 8) {
+                    return null; // PBKDF2 refuses an empty salt, and no other hash length can match
+                }
+                return new Parsed(iterations, salt, hash);
+            } catch (IllegalArgumentException e) {
+                return null; // Covers NumberFormatException too
+            }
+        }
+    }
+}
@@ -4,7 +4,6 @@
  */
 package loginsystem;
 
-import java.io.*;
 import javax.swing.JOptionPane;
 
 
@@ -228,26 +227,26 @@ private void onSaveButtonPressed() {
     
     // You can add additional validation here (e.g., check if fields are empty)
 
-    // If validation passes, save the data
-    if (saveUserDataToFile(firstName, lastName, username, email, password)) {
-        JOptionPane.showMessageDialog(this, "Successfully registered", "Success", JOptionPane.INFORMATION_MESSAGE);
-    } else {
-        JOptionPane.showMessageDialog(this, "Something went wrong", "Error", JOptionPane.ERROR_MESSAGE);
-    }
+    // If validation passes, save the data. Hashing runs off the event dispatch thread,
+    // so the button is disabled until the result is back
+    jButton1.setEnabled(false);
+    saveUserDataToFile(firstName, lastName, username, email, password).whenComplete((registered, error) ->
+            java.awt.EventQueue.invokeLater(() -> {
+                jButton1.setEnabled(true);
+                if (error instanceof java.util.concurrent.RejectedExecutionException
+                        || error != null && error.getCause() instanceof java.util.concurrent.RejectedExecutionException) {
+                    JOptionPane.showMessageDialog(this, "The server is busy. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (error == null && registered) {
+                    JOptionPane.showMessageDialog(this, "Successfully registered", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Something went wrong", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
 }
 
-private boolean saveUserDataToFile(String firstName, String lastName, String username, String email, String password) {
-    String filePath = "users.txt"; // Make sure to update this path
-    try (FileWriter fw = new FileWriter(filePath, true);
-         BufferedWriter bw = new BufferedWriter(fw);
-         PrintWriter out = new PrintWriter(bw)) {
-        // Save data in a simple CSV format for example
-        out.println(String.join(",", firstName, lastName, username, email, password)); // Consider encrypting the password
-        return true;
-    } catch (IOException e) {
-        System.err.println("An error occurred while writing to the file: " + e.getMessage());
-        return false;
-    }
+private java.util.concurrent.CompletableFuture<Boolean> saveUserDataToFile(String firstName, String lastName, String username, String email, String password) {
+    // Registration goes through the shared LoginSystem, which validates, hashes and stores the user
+    return LoginSystem.getInstance().registerUserAsync(firstName, lastName, username, password, email);
 }
 
 private void checkPasswordsMatch() {
@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package loginsystem;
+
+/**
+ * The outcome of registering one record of a bulk registration.
+ */
+public enum RegistrationResult {
+    /** The user was registered and stored. */
+    REGISTERED,
+    /** An earlier record of the same batch has the same username. */
+    DUPLICATE,
+    /** A user with the same username was already registered. */
+    USERNAME_TAKEN,
+    /** A field holds a character the user store cannot store. */
+    UNSUPPORTED_CHARACTER,
+    /** A field is longer than {@link User#MAX_FIELD_BYTES}. */
+    FIELD_TOO_LONG,
+    /** The password is in the bad password dictionary. */
+    BAD_PASSWORD,
+    /** The user was accepted but could not be written to storage. */
+    WRITE_FAILED
+}
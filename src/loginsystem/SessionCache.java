@@ -0,0 +1,266 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessions of logged in users, so a request after a login can be
+ * authenticated with a map lookup instead of a password hash.
+ *
+ * A session is identified by a random 256-bit token. Sessions expire after
+ * a period without use; expired sessions are dropped when they are next
+ * looked up and by a background sweeper. The sessions are split into
+ * segments by token hash, each a map in least recently used order with its
+ * own lock. As every use extends a session by the same lifetime, that is
+ * also the order in which the sessions expire, so dropping expired sessions
+ * and evicting the least recently used one when a segment is full only look
+ * at the oldest entries. Each user also has at most a fixed number of
+ * sessions; a new one ends the user's oldest.
+ */
+public final class SessionCache implements AutoCloseable {
+    private static final int TOKEN_BYTES = 32;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    // The tokens of each user's sessions, oldest first; a list is only used
+    // inside the map's compute methods for its user
+    private final ConcurrentHashMap<String, List<String>> userTokens = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final int maxSessionsPerUser;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Creates an empty cache and starts its sweeper.
+     *
+     * @param ttlMillis          How long a session lasts after it was last used.
+     * @param maxSessions        The most sessions held at once.
+     * @param maxSessionsPerUser The most sessions one user has at once.
+     */
+    public SessionCache(long ttlMillis, int maxSessions, int maxSessionsPerUser) {
+        if (ttlMillis < 1 || maxSessions < 1 || maxSessionsPerUser < 1) {
+            throw new IllegalArgumentException("Session lifetime and counts must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        int count = Math.min(SEGMENTS, maxSessions);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the capacity so the segments add up to it exactly
+            segments[i] = new Segment(maxSessions / count + (i < maxSessions % count ? 1 : 0));
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.min(ttlMillis, 60_000);
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private Segment segmentFor(String token) {
+        int h = token.hashCode();
+        h ^= h >>> 16;
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    /**
+     * Starts a session. If the user already has the most sessions allowed,
+     * the oldest is ended; if the cache is full, the least recently used
+     * session is.
+     *
+     * @param username The user the session is for.
+     * @return The session token.
+     */
+    public String create(String username) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(username, token, now + ttlMillis);
+        List<Session> dropped = new ArrayList<>(1);
+        // The segments are updated inside the compute, so no other create for
+        // the user can end this session before it is in its segment. A segment
+        // lock is only ever taken inside the map's, never the other way round.
+        userTokens.compute(username, (user, tokens) -> {
+            List<String> list = tokens != null ? tokens : new ArrayList<>(2);
+            while (list.size() >= maxSessionsPerUser) {
+                String old = list.remove(0);
+                Segment segment = segmentFor(old);
+                synchronized (segment) {
+                    segment.sessions.remove(old);
+                }
+            }
+            list.add(token);
+            Segment segment = segmentFor(token);
+            synchronized (segment) {
+                segment.sessions.put(token, session);
+                Iterator<Session> it = segment.sessions.values().iterator();
+                while (it.hasNext()) {
+                    Session eldest = it.next();
+                    if (segment.sessions.size() <= segment.capacity && eldest.expiresAt > now) {
+                        break;
+                    }
+                    it.remove();
+                    if (eldest.username.equals(user)) {
+                        list.remove(eldest.token);
+                    } else {
+                        dropped.add(eldest); // Another user's list, updated outside this compute
+                    }
+                }
+            }
+            return list.isEmpty() ? null : list;
+        });
+        forget(dropped);
+        return token;
+    }
+
+    /**
+     * Looks up a session and extends it.
+     *
+     * @param token The session token.
+     * @return The user the session is for, or null if the token is unknown or has expired.
+     */
+    public String validate(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Segment segment = segmentFor(token);
+        Session session;
+        synchronized (segment) {
+            session = segment.sessions.get(token); // Moves the session to the most recently used end
+            if (session == null) {
+                return null;
+            }
+            if (session.expiresAt > now) {
+                session.expiresAt = now + ttlMillis;
+                return session.username;
+            }
+            segment.sessions.remove(token);
+        }
+        forget(List.of(session));
+        return null;
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token The session token.
+     * @return True if the session existed, otherwise false.
+     */
+    public boolean invalidate(String token) {
+        if (token == null) {
+            return false;
+        }
+        Segment segment = segmentFor(token);
+        Session session;
+        synchronized (segment) {
+            session = segment.sessions.remove(token);
+        }
+        if (session == null) {
+            return false;
+        }
+        forget(List.of(session));
+        return true;
+    }
+
+    /**
+     * Gets the number of sessions held, including expired ones not swept yet.
+     *
+     * @return The number of sessions.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.sessions.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops every expired session. Only the expired sessions and one live
+     * session per segment are looked at.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            List<Session> expired = new ArrayList<>();
+            synchronized (segment) {
+                Iterator<Session> it = segment.sessions.values().iterator();
+                while (it.hasNext()) {
+                    Session eldest = it.next();
+                    if (eldest.expiresAt > now) {
+                        break;
+                    }
+                    it.remove();
+                    expired.add(eldest);
+                }
+            }
+            forget(expired);
+        }
+    }
+
+    /**
+     * Removes ended sessions from their users' lists. Called without a
+     * segment lock held, so the two kinds of lock are never nested.
+     */
+    private void forget(List<Session> ended) {
+        for (Session session : ended) {
+            userTokens.computeIfPresent(session.username, (user, tokens) -> {
+                tokens.remove(session.token);
+                return tokens.isEmpty() ? null : tokens;
+            });
+        }
+    }
+
+    /**
+     * Stops the sweeper.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * One segment: sessions by token in least recently used order, guarded
+     * by the segment's monitor.
+     */
+    private static final class Segment {
+        final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+        final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * A user's session.
+     */
+    private static final class Session {
+        final String username;
+        final String token;
+        long expiresAt; // Guarded by the segment's monitor
+
+        Session(String username, String token, long expiresAt) {
+            this.username = username;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.security.*;
+
+/**
+ * Hashes passwords with SHA-256 without allocating on the hot path.
+ * Each thread reuses its own digest instance and buffers; passwords are
+ * encoded to UTF-8 by hand into the reused buffer, and digests are compared
+ * to stored hex hashes byte by byte in constant time. Hex strings are only
+ * built when a hash has to be stored.
+ *
+ * This is the unsalted hash of the original users.txt; new hashes should use
+ * {@link Pbkdf2PasswordHasher}.
+ */
+public final class Sha256PasswordHasher implements PasswordHasher {
+    private static final int DIGEST_SIZE = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    /**
+     * Hashes a password and encodes the digest as lowercase hex, the form
+     * stored in the user file.
+     *
+     * @param password The password to hash.
+     * @return The 64-character hex digest.
+     */
+    @Override
+    public String hash(String password) {
+        State state = STATE.get();
+        byte[] digest = state.digest(password);
+        char[] hex = new char[DIGEST_SIZE * 2];
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            hex[2 * i] = HEX[(digest[i] >>> 4) & 0xF];
+            hex[2 * i + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Checks a password against a stored hex digest. The comparison takes the
+     * same time wherever the digests differ.
+     *
+     * @param password  The password to check.
+     * @param storedHex The stored hex digest, in either case.
+     * @return True if the password hashes to the stored digest, otherwise false.
+     */
+    @Override
+    public boolean matches(String password, String storedHex) {
+        if (storedHex == null || storedHex.length() != DIGEST_SIZE * 2) {
+            return false;
+        }
+        byte[] digest = STATE.get().digest(password);
+        int diff = 0;
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            int stored = (hexValue(storedHex.charAt(2 * i)) << 4) | hexValue(storedHex.charAt(2 * i + 1));
+            diff |= stored ^ (digest[i] & 0xFF);
+        }
+        return diff == 0;
+    }
+
+    @Override
+    public boolean supports(String encoded) {
+        if (encoded == null || encoded.length() != DIGEST_SIZE * 2) {
+            return false;
+        }
+        for (int i = 0; i < encoded.length(); i++) {
+            if (hexValue(encoded.charAt(i)) > 0xF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        return false;
+    }
+
+    /**
+     * Gets the value of a hex digit, or a value no byte can match (bit 8 set)
+     * if the character is not a hex digit.
+     */
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return 0x100;
+    }
+
+    /**
+     * The digest and buffers owned by one thread.
+     */
+    private static final class State {
+        private final MessageDigest md;
+        private final byte[] digest = new byte[DIGEST_SIZE];
+        private byte[] utf8 = new byte[64];
+
+        State() {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        byte[] digest(String password) {
+            int length = encodeUtf8(password);
+            md.update(utf8, 0, length);
+            try {
+                md.digest(digest, 0, DIGEST_SIZE);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            return digest;
+        }
+
+        /**
+         * Encodes the password as UTF-8 into the reused buffer, replacing
+         * unpaired surrogates with '?' as String.getBytes does.
+         */
+        private int encodeUtf8(String s) {
+            int max = s.length() * 3;
+            if (utf8.length < max) {
+                utf8 = new byte[Math.max(max, utf8.length * 2)];
+            }
+            byte[] out = utf8;
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    out[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[n++] = (byte) (0xC0 | (c >> 6));
+                    out[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out[n++] = (byte) (0xF0 | (cp >> 18));
+                    out[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    out[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    out[n++] = '?';
+                } else {
+                    out[n++] = (byte) (0xE0 | (c >> 12));
+                    out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        }
+    }
+}
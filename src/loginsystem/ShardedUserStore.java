@@ -0,0 +1,463 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * A user store split into shards by a hash of the username.
+ * Each shard is a store of its own, with its own file, lock and index, so
+ * writes to different shards do not contend and shards load in parallel.
+ * A shard is opened the first time a username in it is used, or all at
+ * once by {@link #openAll()}.
+ *
+ * Shard files are named after the base file with the shard number before
+ * the extension, for example users-00.txt, users-01.txt and so on. The
+ * number of shards is kept in a manifest named after the base file with
+ * ".shards" added, such as users.txt.shards, and the store refuses to open
+ * with another number, or over the files of an unsharded store, rather than
+ * hide the users already stored. To change the layout, export the users and
+ * import them into the new one with {@link UserFileTransfer}.
+ *
+ * Optionally, a Bloom filter of each shard's usernames is written next to
+ * its files when the store is closed, such as users-00.txt.names. While a
+ * shard is not open, a lookup of a username its filter rules out returns at
+ * once instead of loading the shard, so unknown usernames do not pull lazily
+ * opened shards into memory. A filter is stamped with the names, lengths and
+ * modification times of the shard's files and is ignored once they change;
+ * after a crash, or a write by another program, the shard is opened instead.
+ */
+public final class ShardedUserStore implements UserStore {
+    private static final String MANIFEST = ".shards";
+    private static final String NAMES = ".names";
+    private static final double NAMES_FALSE_POSITIVE_RATE = 0.0001;
+
+    private final Shard[] shards;
+
+    /**
+     * Creates the store, writing its manifest if the store is new. No shard
+     * is opened yet.
+     *
+     * @param shardCount The number of shards.
+     * @param filePath   The base file name the shard files are named after.
+     * @param opener     Opens the store of one shard, given its file.
+     * @throws UncheckedIOException If the manifest cannot be read or written,
+     *         the store has another number of shards, or the base file holds
+     *         an unsharded store.
+     */
+    public ShardedUserStore(int shardCount, String filePath, Function<String, UserStore> opener) {
+        this(shardCount, filePath, opener, false);
+    }
+
+    /**
+     * Creates the store, writing its manifest if the store is new. No shard
+     * is opened yet.
+     *
+     * @param shardCount      The number of shards.
+     * @param filePath        The base file name the shard files are named after.
+     * @param opener          Opens the store of one shard, given its file.
+     * @param filterUsernames True to keep a filter of each shard's usernames
+     *                        and answer lookups it rules out without opening
+     *                        the shard.
+     * @throws UncheckedIOException If the manifest cannot be read or written,
+     *         the store has another number of shards, or the base file holds
+     *         an unsharded store.
+     */
+    public ShardedUserStore(int shardCount, String filePath, Function<String, UserStore> opener, boolean filterUsernames) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1: " + shardCount);
+        }
+        try {
+            checkLayout(filePath, shardCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the user store " + filePath, e);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardFile(filePath, i, shardCount), opener, filterUsernames);
+        }
+    }
+
+    /**
+     * Gets the file of one shard.
+     *
+     * @param filePath   The base file name.
+     * @param shard      The shard number.
+     * @param shardCount The number of shards.
+     * @return The file name with the zero-padded shard number before the extension.
+     */
+    static String shardFile(String filePath, int shard, int shardCount) {
+        String number = String.format("%0" + String.valueOf(shardCount - 1).length() + "d", shard);
+        int dot = filePath.lastIndexOf('.');
+        int slash = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+        if (dot <= slash + 1) {
+            return filePath + "-" + number;
+        }
+        return filePath.substring(0, dot) + "-" + number + filePath.substring(dot);
+    }
+
+    /**
+     * Reads the number of shards a store was created with from its manifest.
+     *
+     * @param filePath The base file name of the store.
+     * @return The number of shards, or 0 if there is no manifest.
+     * @throws IOException If the manifest cannot be read or is corrupt.
+     */
+    static int readShardCount(String filePath) throws IOException {
+        Path manifest = Paths.get(filePath + MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return 0;
+        }
+        String text = new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8).trim();
+        try {
+            int count = Integer.parseInt(text);
+            if (count >= 1) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException("Corrupt shard manifest " + manifest + ": " + text);
+    }
+
+    /**
+     * Checks that the files next to the base file belong to a store with the
+     * given number of shards, and writes the manifest of a new store.
+     */
+    private static void checkLayout(String filePath, int shardCount) throws IOException {
+        int stored = readShardCount(filePath);
+        if (stored == shardCount) {
+            return;
+        }
+        if (stored != 0) {
+            throw new IOException("The user store " + filePath + " has " + stored + " shards, not " + shardCount
+                    + "; export the users and import them into the new layout");
+        }
+        Path base = Paths.get(filePath).toAbsolutePath();
+        Set<String> ownFiles = new HashSet<>();
+        for (int i = 0; i < shardCount; i++) {
+            ownFiles.add(Paths.get(shardFile(filePath, i, shardCount)).getFileName().toString());
+        }
+        // Any numbering of the shard files, as shardFile names them
+        String sample = Paths.get(shardFile(filePath, 0, 1)).getFileName().toString();
+        int number = sample.lastIndexOf("-0");
+        Pattern shardName = Pattern.compile("(" + Pattern.quote(sample.substring(0, number)) + "-\\d+"
+                + Pattern.quote(sample.substring(number + 2)) + ")(\\..*)?");
+        String unshardedPrefix = base.getFileName() + ".";
+        if (Files.isDirectory(base.getParent())) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(base.getParent())) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.equals(base.getFileName().toString())
+                            || name.startsWith(unshardedPrefix) && !name.startsWith(unshardedPrefix + MANIFEST.substring(1))) {
+                        // The base file, or one named after it such as a write-ahead log store's snapshots and logs
+                        throw new IOException("The user store " + filePath + " is not sharded"
+                                + "; export the users and import them into the sharded layout");
+                    }
+                    Matcher shard = shardName.matcher(name);
+                    if (shard.matches() && !ownFiles.contains(shard.group(1))) {
+                        throw new IOException("The user store " + filePath + " has shard files of another layout, such as " + name
+                                + "; export the users and import them into the new layout");
+                    }
+                }
+            }
+        }
+        Path manifest = Paths.get(filePath + MANIFEST);
+        Path temp = Paths.get(filePath + MANIFEST + ".tmp");
+        Files.createDirectories(base.getParent());
+        Files.write(temp, (shardCount + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Opens every shard that is not open yet, in parallel.
+     */
+    public void openAll() {
+        IntStream.range(0, shards.length).parallel().forEach(i -> shards[i].store());
+    }
+
+    /**
+     * Gets the number of shards that have been opened.
+     *
+     * @return The number of open shards.
+     */
+    public int getOpenShards() {
+        int open = 0;
+        for (Shard shard : shards) {
+            if (shard.isOpen()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Gets the number of the shard holding a username. String hash codes are
+     * the same in every run, so a username always maps to the same shard file.
+     */
+    private int shardIndex(String username) {
+        int h = username.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return Math.floorMod(h, shards.length);
+    }
+
+    private UserStore shardFor(String username) {
+        return shards[shardIndex(username)].store();
+    }
+
+    @Override
+    public User get(String username) {
+        Shard shard = shards[shardIndex(username)];
+        return shard.mightHold(username) ? shard.store().get(username) : null;
+    }
+
+    @Override
+    public boolean exists(String username) {
+        Shard shard = shards[shardIndex(username)];
+        return shard.mightHold(username) && shard.store().exists(username);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putIfAbsent(User user) {
+        return shardFor(user.getUsername()).putIfAbsent(user);
+    }
+
+    @Override
+    public CompletableFuture<boolean[]> putAllIfAbsent(List<User> batch) {
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        List<List<User>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int shard = shardIndex(batch.get(i).getUsername());
+            positions.get(shard).add(i);
+            groups.get(shard).add(batch.get(i));
+        }
+        boolean[] added = new boolean[batch.size()];
+        boolean[] failed = new boolean[batch.size()];
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            List<Integer> at = positions.get(shard);
+            if (!at.isEmpty()) {
+                writes.add(putShard(shard, groups.get(shard)).handle((result, e) -> {
+                    // Each shard sets only its own positions
+                    for (int i = 0; i < at.size(); i++) {
+                        if (e == null) {
+                            added[at.get(i)] = result[i];
+                        } else {
+                            failed[at.get(i)] = true;
+                        }
+                    }
+                    if (e != null) {
+                        firstError.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                    }
+                    return null;
+                }));
+            }
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Throwable error = firstError.get();
+            if (error != null) {
+                throw new CompletionException(new PartialWriteException(
+                        "Some shards could not be written: " + error.getMessage(), error, added, failed));
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Adds a group of users to one shard, turning an error opening the shard
+     * into a failed future so it fails only that shard's users.
+     */
+    private CompletableFuture<boolean[]> putShard(int shard, List<User> group) {
+        try {
+            return shards[shard].store().putAllIfAbsent(group);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> put(User user) {
+        return shardFor(user.getUsername()).put(user);
+    }
+
+    @Override
+    public void scan(Consumer<User> action) {
+        for (Shard shard : shards) {
+            shard.store().scan(action);
+        }
+    }
+
+    @Override
+    public long size() {
+        openAll();
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.store().size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return shardFor(user.getUsername()).canStore(user);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * One shard, opened on first use.
+     */
+    private static final class Shard {
+        private final String filePath;
+        private final Function<String, UserStore> opener;
+        private final boolean filterUsernames;
+        private volatile UserStore store;
+        private volatile BloomFilter usernames; // Of the shard's files while it is not open, or null
+        private volatile boolean filterRead;
+        private boolean closed; // Guarded by this
+
+        Shard(String filePath, Function<String, UserStore> opener, boolean filterUsernames) {
+            this.filePath = filePath;
+            this.opener = opener;
+            this.filterUsernames = filterUsernames;
+        }
+
+        UserStore store() {
+            UserStore s = store;
+            if (s == null) {
+                synchronized (this) {
+                    if (closed) {
+                        throw new IllegalStateException("The user store is closed");
+                    }
+                    s = store;
+                    if (s == null) {
+                        s = opener.apply(filePath);
+                        store = s;
+                        usernames = null; // The open store answers from now on
+                    }
+                }
+            }
+            return s;
+        }
+
+        boolean isOpen() {
+            return store != null;
+        }
+
+        /**
+         * Checks if the shard may hold a username. Once the shard is open, or
+         * if it has no filter matching its files, it always may.
+         */
+        boolean mightHold(String username) {
+            if (!filterUsernames || store != null) {
+                return true;
+            }
+            if (!filterRead) {
+                readFilter();
+            }
+            BloomFilter filter = usernames;
+            return filter == null || store != null || filter.mightContain(BadPasswordIndex.fingerprint(username));
+        }
+
+        private synchronized void readFilter() {
+            if (filterRead || store != null) {
+                return;
+            }
+            try {
+                usernames = BloomFilter.readFrom(namesFile(), stamp());
+            } catch (IOException e) {
+                System.err.println("An error occurred while reading from the file: " + e.getMessage());
+            }
+            filterRead = true;
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (store != null) {
+                BloomFilter filter = filterUsernames ? scanUsernames(store) : null;
+                store.close();
+                if (filter != null) {
+                    try {
+                        filter.writeTo(namesFile(), stamp()); // Stamped with the files as the closed store left them
+                    } catch (IOException e) {
+                        System.err.println("An error occurred while writing to the file: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private static BloomFilter scanUsernames(UserStore store) {
+            BloomFilter filter = BloomFilter.create(Math.max(1, store.size()), NAMES_FALSE_POSITIVE_RATE);
+            store.scan(user -> filter.put(BadPasswordIndex.fingerprint(user.getUsername())));
+            return filter;
+        }
+
+        private File namesFile() {
+            return new File(filePath + NAMES);
+        }
+
+        /**
+         * Stamps the shard's files: the shard file and any named after it,
+         * such as a write-ahead log store's snapshots and logs, but not the
+         * filter itself.
+         */
+        private long stamp() throws IOException {
+            Path path = Paths.get(filePath).toAbsolutePath();
+            String name = path.getFileName().toString();
+            long stamp = Double.doubleToLongBits(NAMES_FALSE_POSITIVE_RATE);
+            if (!Files.isDirectory(path.getParent())) {
+                return stamp;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent(), file -> {
+                String fileName = file.getFileName().toString();
+                return fileName.equals(name) || fileName.startsWith(name + ".") && !fileName.startsWith(name + NAMES);
+            })) {
+                for (Path file : files) {
+                    // Summed, so the order the directory lists the files in does not matter
+                    long h = file.getFileName().toString().hashCode();
+                    h = h * 31 + Files.size(file);
+                    h = h * 31 + Files.getLastModifiedTime(file).toMillis();
+                    h ^= h >>> 33;
+                    h *= 0xff51afd7ed558ccdL;
+                    h ^= h >>> 33;
+                    stamp += h;
+                }
+            }
+            return stamp;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The users.txt format: one line per user holding the first name, last name,
+ * username, password hash and email separated by a delimiter.
+ */
+public final class TextUserFileFormat implements UserFileFormat {
+    private final char delimiter;
+
+    /**
+     * Creates the format with the given field delimiter.
+     *
+     * @param delimiter The field delimiter.
+     */
+    public TextUserFileFormat(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Gets the field delimiter.
+     *
+     * @return The delimiter.
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    @Override
+    public UserReader openReader(InputStream in) {
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return new UserReader() {
+            @Override
+            public User read() throws IOException {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    User user = parse(line);
+                    if (user != null) {
+                        return user;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                br.close();
+            }
+        };
+    }
+
+    @Override
+    public UserWriter openWriter(OutputStream out, boolean writeHeader) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        return new UserWriter() {
+            @Override
+            public void write(User user) throws IOException {
+                writer.write(format(user));
+                writer.write(System.lineSeparator());
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return canHold(user.getFirstName()) && canHold(user.getLastName()) && canHold(user.getUsername())
+                && canHold(user.getPassword()) && canHold(user.getEmail());
+    }
+
+    /**
+     * Checks that a field holds neither the delimiter nor a line break.
+     */
+    private boolean canHold(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == delimiter || c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Formats a user as one line, without a line break.
+     *
+     * @param user The user to format.
+     * @return The line.
+     */
+    public String format(User user) {
+        return user.getFirstName() + delimiter + user.getLastName() + delimiter + user.getUsername() + delimiter + user.getPassword() + delimiter + user.getEmail();
+    }
+
+    /**
+     * Parses one line.
+     *
+     * @param line The line, without a line break.
+     * @return The user, or null if the line does not hold exactly five fields.
+     */
+    public User parse(String line) {
+        String[] fields = new String[5];
+        int field = 0;
+        int start = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == delimiter) {
+                if (field == 4) {
+                    return null;
+                }
+                fields[field++] = line.substring(start, i);
+                start = i + 1;
+            }
+        }
+        if (field != 4) {
+            return null;
+        }
+        fields[4] = line.substring(start);
+        return new User(fields[0], fields[1], fields[2], fields[3], fields[4]);
+    }
+}
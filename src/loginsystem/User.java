@@ -1,83 +1,303 @@
-/*
- * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
- * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
- */
-package loginsystem;
-
-/**
- *
- * @author Mukarram
- */
-/**
- * Represents a user entity with basic information.
- */
-public class User {
-    private String firstName;
-    private String lastName;
-    private String username;
-    private String password; // This will be stored as an encrypted hash.
-    private String email;
-
-    /**
-     * Constructs a new User object with provided details.
-     *
-     * @param firstName The first name of the user.
-     * @param lastName  The last name of the user.
-     * @param username  The username of the user.
-     * @param password  The password of the user (encrypted hash).
-     * @param email     The email address of the user.
-     */
-    public User(String firstName, String lastName, String username, String password, String email) {
-        this.firstName = firstName;
-        this.lastName = lastName;
-        this.username = username;
-        this.password = password; // Note: Should be encrypted before setting.
-        this.email = email;
-    }
-
-    // Getters
-    /**
-     * Gets the first name of the user.
-     *
-     * @return The first name.
-     */
-    public String getFirstName() {
-        return firstName;
-    }
-
-    /**
-     * Gets the last name of the user.
-     *
-     * @return The last name.
-     */
-    public String getLastName() {
-        return lastName;
-    }
-
-    /**
-     * Gets the username of the user.
-     *
-     * @return The username.
-     */
-    public String getUsername() {
-        return username;
-    }
-
-    /**
-     * Gets the password of the user (stored as an encrypted hash).
-     *
-     * @return The password.
-     */
-    public String getPassword() {
-        return password;
-    }
-
-    /**
-     * Gets the email address of the user.
-     *
-     * @return The email address.
-     */
-    public String getEmail() {
-        return email;
-    }
-}
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ *
+ * @author Mukarram
+ */
+/**
+ * Represents a user entity with basic information.
+ * Users are kept compact so millions fit in memory: common names are shared
+ * between users through a small fixed-size table, and the password hash and email share one byte array in which SHA-256 and
+ * PBKDF2 hashes are stored in binary rather than as text.
+ */
+public class User {
+    /**
+     * The longest field, in UTF-8 bytes, that a user can be registered with.
+     * Five fields this long still fit in one record of every user file format.
+     */
+    public static final int MAX_FIELD_BYTES = 0xFFFF;
+
+    private static final int TAG_HEX_DIGEST = 0;
+    private static final int TAG_PBKDF2 = 1;
+    private static final int TAG_STRING = 2;
+    private static final int DIGEST_SIZE = 32;
+    private static final String PBKDF2_PREFIX = "pbkdf2-sha256$";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Recently seen names by hash, so users with the same name share one
+    // String. Read and written without locking: a lost write only costs a
+    // duplicate, and Strings are safe to publish through a race.
+    private static final String[] NAMES = new String[4096];
+
+    private final String firstName; // Often shared, many users share a name
+    private final String lastName; // Often shared
+    private final String username;
+    // The password hash and email packed into one array: a tag byte, the hash
+    // (a raw SHA-256 digest, the binary fields of a PBKDF2 hash, or a UTF-8
+    // string after a four byte length), then the email as UTF-8 to the end.
+    private final byte[] packed;
+
+    /**
+     * Constructs a new User object with provided details.
+     *
+     * @param firstName The first name of the user.
+     * @param lastName  The last name of the user.
+     * @param username  The username of the user.
+     * @param password  The password of the user (encrypted hash).
+     * @param email     The email address of the user.
+     */
+    public User(String firstName, String lastName, String username, String password, String email) {
+        this.firstName = share(firstName);
+        this.lastName = share(lastName);
+        this.username = username;
+        this.packed = pack(password, email); // Note: The password should be encrypted before setting.
+    }
+
+    // Getters
+    /**
+     * Gets the first name of the user.
+     *
+     * @return The first name.
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * Gets the last name of the user.
+     *
+     * @return The last name.
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Gets the username of the user.
+     *
+     * @return The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the password of the user (stored as an encrypted hash).
+     *
+     * @return The password.
+     */
+    public String getPassword() {
+        switch (packed[0]) {
+            case TAG_HEX_DIGEST: {
+                char[] hex = new char[DIGEST_SIZE * 2];
+                for (int i = 0; i < DIGEST_SIZE; i++) {
+                    hex[2 * i] = HEX[(packed[1 + i] >>> 4) & 0xF];
+                    hex[2 * i + 1] = HEX[packed[1 + i] & 0xF];
+                }
+                return new String(hex);
+            }
+            case TAG_PBKDF2: {
+                int iterations = intAt(1);
+                int saltLength = packed[5] & 0xFF;
+                int hashLength = packed[6 + saltLength] & 0xFF;
+                Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+                return PBKDF2_PREFIX + iterations
+                        + "$" + base64.encodeToString(Arrays.copyOfRange(packed, 6, 6 + saltLength))
+                        + "$" + base64.encodeToString(Arrays.copyOfRange(packed, 7 + saltLength, 7 + saltLength + hashLength));
+            }
+            default:
+                return new String(packed, 5, passwordEnd() - 5, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Gets the email address of the user.
+     *
+     * @return The email address.
+     */
+    public String getEmail() {
+        int from = passwordEnd();
+        return new String(packed, from, packed.length - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if a field is short enough to register a user with, see
+     * {@link #MAX_FIELD_BYTES}.
+     *
+     * @param field The field as entered.
+     * @return True if the field is at most {@link #MAX_FIELD_BYTES} long in UTF-8.
+     */
+    public static boolean fits(String field) {
+        if (field.length() <= MAX_FIELD_BYTES / 3) {
+            return true; // No character takes more than three bytes
+        }
+        if (field.length() > MAX_FIELD_BYTES) {
+            return false;
+        }
+        return field.getBytes(StandardCharsets.UTF_8).length <= MAX_FIELD_BYTES;
+    }
+
+    /**
+     * Estimates the heap used by this user, assuming compressed references.
+     * The names, often shared with other users, are not counted.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long footprintBytes() {
+        long self = align(12 + 4 * 4);
+        long usernameBytes = align(24) + align(16 + username.length() * (isLatin1(username) ? 1 : 2));
+        return self + usernameBytes + align(16 + packed.length);
+    }
+
+    /**
+     * Gets the String for a name that is held in the table of names, putting
+     * this one in its slot if it holds another name. Unlike String.intern the
+     * table never grows, whatever names are registered.
+     */
+    private static String share(String name) {
+        int h = name.hashCode();
+        int slot = (h ^ h >>> 16) & (NAMES.length - 1);
+        String shared = NAMES[slot];
+        if (name.equals(shared)) {
+            return shared;
+        }
+        NAMES[slot] = name;
+        return name;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets where the email starts in the packed array.
+     */
+    private int passwordEnd() {
+        switch (packed[0]) {
+            case TAG_HEX_DIGEST:
+                return 1 + DIGEST_SIZE;
+            case TAG_PBKDF2: {
+                int saltLength = packed[5] & 0xFF;
+                return 7 + saltLength + (packed[6 + saltLength] & 0xFF);
+            }
+            default:
+                return 5 + intAt(1);
+        }
+    }
+
+    /**
+     * Reads a big-endian int from the packed array.
+     */
+    private int intAt(int offset) {
+        return ((packed[offset] & 0xFF) << 24) | ((packed[offset + 1] & 0xFF) << 16)
+                | ((packed[offset + 2] & 0xFF) << 8) | (packed[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Packs a password hash and an email into one array, storing the hash in
+     * binary when it is in a form that can be rebuilt exactly.
+     */
+    private static byte[] pack(String password, String email) {
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        byte[] hash = packDigest(password);
+        if (hash == null) {
+            hash = packPbkdf2(password);
+        }
+        if (hash == null) {
+            byte[] utf8 = password.getBytes(StandardCharsets.UTF_8);
+            hash = new byte[5 + utf8.length];
+            hash[0] = TAG_STRING;
+            hash[1] = (byte) (utf8.length >>> 24);
+            hash[2] = (byte) (utf8.length >>> 16);
+            hash[3] = (byte) (utf8.length >>> 8);
+            hash[4] = (byte) utf8.length;
+            System.arraycopy(utf8, 0, hash, 5, utf8.length);
+        }
+        byte[] result = Arrays.copyOf(hash, hash.length + emailBytes.length);
+        System.arraycopy(emailBytes, 0, result, hash.length, emailBytes.length);
+        return result;
+    }
+
+    /**
+     * Packs a lowercase hex SHA-256 digest, or returns null if the password is not one.
+     */
+    private static byte[] packDigest(String password) {
+        if (password.length() != DIGEST_SIZE * 2) {
+            return null;
+        }
+        byte[] result = new byte[1 + DIGEST_SIZE];
+        result[0] = TAG_HEX_DIGEST;
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            int high = lowerHexValue(password.charAt(2 * i));
+            int low = lowerHexValue(password.charAt(2 * i + 1));
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            result[1 + i] = (byte) (high << 4 | low);
+        }
+        return result;
+    }
+
+    private static int lowerHexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Packs a PBKDF2 hash as its iteration count, salt and hash, or returns
+     * null if the password is not one that would be rebuilt exactly.
+     */
+    private static byte[] packPbkdf2(String password) {
+        if (!password.startsWith(PBKDF2_PREFIX)) {
+            return null;
+        }
+        String[] parts = password.substring(PBKDF2_PREFIX.length()).split("\\$", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] hash = Base64.getDecoder().decode(parts[2]);
+            Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+            if (iterations < 0 || salt.length > 0xFF || hash.length > 0xFF || !String.valueOf(iterations).equals(parts[0])
+                    || !base64.encodeToString(salt).equals(parts[1]) || !base64.encodeToString(hash).equals(parts[2])) {
+                return null;
+            }
+            byte[] result = new byte[7 + salt.length + hash.length];
+            result[0] = TAG_PBKDF2;
+            result[1] = (byte) (iterations >>> 24);
+            result[2] = (byte) (iterations >>> 16);
+            result[3] = (byte) (iterations >>> 8);
+            result[4] = (byte) iterations;
+            result[5] = (byte) salt.length;
+            System.arraycopy(salt, 0, result, 6, salt.length);
+            result[6 + salt.length] = (byte) hash.length;
+            System.arraycopy(hash, 0, result, 7 + salt.length, hash.length);
+            return result;
+        } catch (IllegalArgumentException e) {
+            return null; // Not a number or not base64
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Appends user records to a file from a single background thread.
+ * Records queued by many threads are written together in one batch
+ * (group commit), so the file is opened once and flushed, and optionally
+ * synced to disk, once per batch instead of once per user. A batch is
+ * encoded in memory and written with one call; if the write fails, the file
+ * is cut back to where the batch started, so a torn batch never stays in
+ * front of later records.
+ */
+public final class UserAppendLog implements AutoCloseable {
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final boolean fsync;
+    private final FileOutputStream fileOut;
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(1 << 16); // The batch being written
+    private final UserFileFormat.UserWriter writer; // Writes to encoded
+    private final Thread thread;
+    private final Thread shutdownHook;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CountDownLatch drained = new CountDownLatch(1); // Counted down once close has written everything
+
+    /**
+     * Opens the log on a file, appending to any existing content.
+     *
+     * @param filePath       The file to append to.
+     * @param format         The format of the file.
+     * @param maxBatchSize   The most records written in one batch.
+     * @param maxDelayMillis How long a batch waits for more records before it is written.
+     * @param fsync          True to sync the file to disk after each batch.
+     * @throws IOException If the file cannot be opened.
+     */
+    public UserAppendLog(String filePath, UserFileFormat format, int maxBatchSize, long maxDelayMillis, boolean fsync) throws IOException {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.fsync = fsync;
+        this.fileOut = new FileOutputStream(filePath, true);
+        this.writer = format.openWriter(encoded, fileOut.getChannel().size() == 0);
+        writer.flush();
+        if (encoded.size() > 0) {
+            encoded.writeTo(fileOut); // The header of a new file
+            encoded.reset();
+        }
+        this.thread = new Thread(this::run, "user-append-log");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        this.shutdownHook = new Thread(this::close, "user-append-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a user to be appended.
+     *
+     * @param user The user to append.
+     * @return A future that completes once the batch holding the user has been written.
+     */
+    public CompletableFuture<Void> append(User user) {
+        return appendAll(List.of(user));
+    }
+
+    /**
+     * Queues users to be appended together, in order, in the same batch.
+     *
+     * @param users The users to append.
+     * @return A future that completes once the batch holding the users has been written.
+     */
+    public CompletableFuture<Void> appendAll(List<User> users) {
+        Pending pending = new Pending(users);
+        queue.add(pending);
+        if (closed.get() && queue.remove(pending)) {
+            // Nobody will drain the queue any more
+            pending.future.completeExceptionally(new IllegalStateException("The user log is closed"));
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed.get() || !queue.isEmpty()) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize && !closed.get()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        LoginEvents.FileAppend event = new LoginEvents.FileAppend();
+        event.begin();
+        int count = 0;
+        long bytes = 0;
+        long before = -1;
+        try {
+            for (Pending pending : batch) {
+                for (User user : pending.users) {
+                    writer.write(user);
+                }
+                count += pending.users.size();
+            }
+            writer.flush();
+            bytes = encoded.size();
+            before = fileOut.getChannel().size();
+            encoded.writeTo(fileOut);
+            if (fsync) {
+                fileOut.getChannel().force(false);
+            }
+            for (Pending pending : batch) {
+                pending.future.complete(null);
+            }
+            event.outcome = "written";
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+            if (before >= 0) {
+                truncate(before);
+            }
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            event.outcome = "failed";
+        } finally {
+            encoded.reset();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.users = count;
+            event.bytes = bytes;
+            event.synced = fsync;
+            event.commit();
+        }
+    }
+
+    /**
+     * Cuts off the part of a batch that was written before a write failed.
+     */
+    private void truncate(long length) {
+        try {
+            fileOut.getChannel().truncate(length);
+        } catch (IOException e) {
+            System.err.println("An error occurred while truncating the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes everything still queued and closes the file. If another thread
+     * is already closing the log, waits for it to finish.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            try {
+                drained.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> late = new ArrayList<>();
+        queue.drainTo(late); // Queued while the log was closing
+        if (!late.isEmpty()) {
+            writeBatch(late);
+        }
+        try {
+            writer.close();
+            fileOut.close();
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+        }
+        drained.countDown();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down, the hook is running or has run
+            }
+        }
+    }
+
+    /**
+     * Queued users and the future to complete once they are written.
+     */
+    private static final class Pending {
+        final List<User> users;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(List<User> users) {
+            this.users = users;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded cache of users that evicts the least recently used user.
+ * The cache is split into segments by username hash, each an LRU map with
+ * its own lock, so threads looking up different users rarely contend.
+ * Hits, misses and evictions are also added to the process-wide
+ * {@link LoginMetrics}.
+ */
+public final class UserCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The most users held, at least 1.
+     */
+    public UserCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        int count = Math.min(SEGMENTS, capacity);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the capacity so the segments add up to it exactly
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    private Segment segmentFor(String username) {
+        int h = username.hashCode();
+        h ^= h >>> 16;
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    /**
+     * Gets a cached user, counting a hit or a miss.
+     *
+     * @param username The username to look up.
+     * @return The user, or null if it is not cached.
+     */
+    public User get(String username) {
+        Segment segment = segmentFor(username);
+        User user;
+        synchronized (segment) {
+            user = segment.get(username);
+        }
+        (user != null ? hits : misses).increment();
+        LoginMetrics.countCacheLookup(user != null);
+        return user;
+    }
+
+    /**
+     * Caches a user, replacing any cached user with the same username.
+     *
+     * @param user The user to cache.
+     */
+    public void put(User user) {
+        Segment segment = segmentFor(user.getUsername());
+        synchronized (segment) {
+            segment.put(user.getUsername(), user);
+        }
+    }
+
+    /**
+     * Removes a user if it is the one cached for its username.
+     *
+     * @param user The user to remove.
+     */
+    public void remove(User user) {
+        Segment segment = segmentFor(user.getUsername());
+        synchronized (segment) {
+            segment.remove(user.getUsername(), user);
+        }
+    }
+
+    /**
+     * Gets the number of cached users.
+     *
+     * @return The number of users.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the most users the cache holds.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached user.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found no cached user.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of users evicted to make room for others.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the share of lookups that found a cached user.
+     *
+     * @return The hit rate, between 0 and 1.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d users cached, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(), capacity, getHits(), getMisses(), getHitRate() * 100, getEvictions());
+    }
+
+    /**
+     * One segment: an access-ordered map that drops its eldest entry when full.
+     * Guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<String, User> {
+        private static final long serialVersionUID = 1L;
+
+        private final int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            super(16, 0.75f, true);
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                LoginMetrics.countCacheEviction();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+
+/**
+ * Converts a user file from one format to another, one record at a time.
+ */
+public final class UserFileConverter {
+
+    private UserFileConverter() {
+    }
+
+    /**
+     * Copies every user from one file to another. Files whose names end in
+     * ".gz" are read and written with gzip.
+     *
+     * @param in         The file to read.
+     * @param inFormat   The format of the file to read.
+     * @param out        The file to write, replaced if it exists.
+     * @param outFormat  The format of the file to write.
+     * @return The number of users copied.
+     * @throws IOException If a file cannot be read or written, or a user cannot be stored in the new format.
+     */
+    public static long convert(String in, UserFileFormat inFormat, String out, UserFileFormat outFormat) throws IOException {
+        long count = 0;
+        try (UserFileFormat.UserReader reader = inFormat.openReader(UserFileTransfer.openInput(in));
+                UserFileFormat.UserWriter writer = outFormat.openWriter(UserFileTransfer.openOutput(out), true)) {
+            User user;
+            while ((user = reader.read()) != null) {
+                if (!outFormat.canStore(user)) {
+                    throw new IOException("User " + user.getUsername() + " cannot be stored in " + out);
+                }
+                writer.write(user);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts a user file from the command line:
+     * {@code UserFileConverter <in> <out>}. The formats are picked from the
+     * file names, see {@link UserFileTransfer}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: UserFileConverter <in> <out>");
+            System.exit(2);
+        }
+        try {
+            long count = convert(args[0], UserFileTransfer.formatOf(args[0]), args[1], UserFileTransfer.formatOf(args[1]));
+            System.out.println("Converted " + count + " users from " + args[0] + " to " + args[1]);
+        } catch (IOException e) {
+            System.err.println("An error occurred while converting the file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+
+/**
+ * An on-disk format for a file of user records.
+ */
+public interface UserFileFormat {
+
+    /**
+     * Opens a reader over a stream holding a whole file in this format.
+     *
+     * @param in The stream to read, positioned at the start of the file.
+     * @return The reader.
+     * @throws IOException If the stream cannot be read or is not in this format.
+     */
+    UserReader openReader(InputStream in) throws IOException;
+
+    /**
+     * Opens a writer that writes users to a stream in this format.
+     *
+     * @param out         The stream to write to.
+     * @param writeHeader True if the stream is at the start of a new file, false when appending to an existing one.
+     * @return The writer.
+     * @throws IOException If the stream cannot be written.
+     */
+    UserWriter openWriter(OutputStream out, boolean writeHeader) throws IOException;
+
+    /**
+     * Checks if a user can be stored in this format without losing data.
+     *
+     * @param user The user to check.
+     * @return True if the user can be stored, otherwise false.
+     */
+    boolean canStore(User user);
+
+    /**
+     * Picks the format of a user file from its name: files ending in ".bin"
+     * are binary, files ending in ".csv" are CSV, everything else is
+     * delimited text.
+     *
+     * @param filePath The user file.
+     * @return The format of the file.
+     */
+    static UserFileFormat forFile(String filePath) {
+        if (filePath.endsWith(".bin")) {
+            return new BinaryUserFileFormat();
+        }
+        if (filePath.endsWith(".csv")) {
+            return new CsvUserFileFormat();
+        }
+        return new TextUserFileFormat(';');
+    }
+
+    /**
+     * Reads users one at a time.
+     */
+    interface UserReader extends Closeable {
+
+        /**
+         * Reads the next user.
+         *
+         * @return The next user, or null at the end of the file.
+         * @throws IOException If the file cannot be read or is corrupt.
+         */
+        User read() throws IOException;
+    }
+
+    /**
+     * Writes users one at a time.
+     */
+    interface UserWriter extends Closeable, Flushable {
+
+        /**
+         * Writes a user.
+         *
+         * @param user The user to write.
+         * @throws IOException If the user cannot be written.
+         */
+        void write(User user) throws IOException;
+    }
+}
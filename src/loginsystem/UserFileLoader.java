@@ -0,0 +1,267 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a delimited user file in parallel.
+ * The file is cut into chunks at line boundaries, each chunk is read with
+ * NIO and parsed on the fork-join pool with a hand-written field scanner.
+ * When a username appears more than once, the last line in the file wins.
+ */
+public final class UserFileLoader {
+    private static final int MAX_CHUNK_SIZE = 8 << 20;
+    private static final int MIN_CHUNK_SIZE = 256 << 10;
+    private static final int FIELDS = 5;
+    private static final long PARALLELISM_THRESHOLD = 4096;
+
+    private final byte delimiter;
+
+    /**
+     * Creates a loader for lines of five fields (first name, last name,
+     * username, password, email) separated by the given delimiter.
+     *
+     * @param delimiter The field delimiter, a single ASCII character.
+     */
+    public UserFileLoader(char delimiter) {
+        if (delimiter >= 0x80) {
+            throw new IllegalArgumentException("Delimiter must be ASCII: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Loads every user in the file into the given map.
+     *
+     * @param filePath The file to load.
+     * @param users    The map to fill, keyed by username.
+     * @return The statistics of the load.
+     * @throws IOException If the file cannot be read.
+     */
+    public LoadStats load(String filePath, ConcurrentMap<String, User> users) throws IOException {
+        long start = System.nanoTime();
+        ConcurrentHashMap<String, Loaded> loaded = new ConcurrentHashMap<>();
+        LongAdder rows = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        long size;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            size = channel.size();
+            List<ChunkTask> tasks = new ArrayList<>();
+            long chunkStart = 0;
+            long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (ForkJoinPool.getCommonPoolParallelism() * 4L + 1)));
+            while (chunkStart < size) {
+                long chunkEnd = nextLineStart(channel, Math.min(size, chunkStart + chunkSize), size);
+                tasks.add(new ChunkTask(channel, chunkStart, chunkEnd, loaded, rows, skipped));
+                chunkStart = chunkEnd;
+            }
+            try {
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        loaded.forEach(PARALLELISM_THRESHOLD, (username, entry) -> users.put(username, entry.user));
+        return new LoadStats(rows.sum(), skipped.sum(), size, System.nanoTime() - start);
+    }
+
+    /**
+     * Finds the first line starting at or after the given position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the lines of one chunk of the file.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final ConcurrentHashMap<String, Loaded> loaded;
+        private final LongAdder rows;
+        private final LongAdder skipped;
+
+        ChunkTask(FileChannel channel, long start, long end, ConcurrentHashMap<String, Loaded> loaded, LongAdder rows, LongAdder skipped) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.loaded = loaded;
+            this.rows = rows;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            byte[] bytes = new byte[(int) (end - start)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        throw new EOFException("File shrank while loading");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int[] bounds = new int[FIELDS * 2];
+            int lineStart = 0;
+            long localRows = 0;
+            long localSkipped = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i == bytes.length || bytes[i] == '\n') {
+                    int lineEnd = i;
+                    if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                        lineEnd--;
+                    }
+                    if (lineEnd > lineStart) {
+                        if (splitFields(bytes, lineStart, lineEnd, bounds)) {
+                            addUser(bytes, bounds, start + lineStart);
+                            localRows++;
+                        } else {
+                            localSkipped++;
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            rows.add(localRows);
+            skipped.add(localSkipped);
+        }
+
+        private boolean splitFields(byte[] bytes, int from, int to, int[] bounds) {
+            int field = 0;
+            bounds[0] = from;
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == delimiter) {
+                    if (field == FIELDS - 1) {
+                        return false; // Too many fields
+                    }
+                    bounds[field * 2 + 1] = i;
+                    field++;
+                    bounds[field * 2] = i + 1;
+                }
+            }
+            bounds[field * 2 + 1] = to;
+            return field == FIELDS - 1;
+        }
+
+        private void addUser(byte[] bytes, int[] bounds, long offset) {
+            User user = new User(field(bytes, bounds, 0), field(bytes, bounds, 1), field(bytes, bounds, 2), field(bytes, bounds, 3), field(bytes, bounds, 4));
+            Loaded entry = new Loaded(offset, user);
+            loaded.merge(user.getUsername(), entry, (a, b) -> a.offset > b.offset ? a : b);
+        }
+
+        private String field(byte[] bytes, int[] bounds, int index) {
+            int from = bounds[index * 2];
+            return new String(bytes, from, bounds[index * 2 + 1] - from, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A parsed user and where its line starts in the file.
+     */
+    private static final class Loaded {
+        final long offset;
+        final User user;
+
+        Loaded(long offset, User user) {
+            this.offset = offset;
+            this.user = user;
+        }
+    }
+
+    /**
+     * Statistics of one load.
+     */
+    public static final class LoadStats {
+        private final long rows;
+        private final long skipped;
+        private final long bytes;
+        private final long nanos;
+
+        LoadStats(long rows, long skipped, long bytes, long nanos) {
+            this.rows = rows;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the number of lines loaded as users.
+         *
+         * @return The number of rows.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of non-empty lines that were not valid user lines.
+         *
+         * @return The number of skipped lines.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gets the time the load took.
+         *
+         * @return The load time in milliseconds.
+         */
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+
+        /**
+         * Gets the load rate.
+         *
+         * @return The number of rows loaded per second.
+         */
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d users (%d skipped, %d KiB) in %d ms, %.0f rows/s",
+                    rows, skipped, bytes / 1024, getMillis(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports a user store to a file and imports a file into a user store, one
+ * record at a time, for backups and migrations.
+ *
+ * The file format is picked from the file name as by
+ * {@link UserFileFormat#forFile(String)}, after an optional ".gz" suffix
+ * that compresses the file with gzip; for example "users.csv.gz" is a
+ * gzipped CSV file. Only one record (or, when importing, one batch of
+ * records) is held in memory at a time.
+ */
+public final class UserFileTransfer {
+    private static final int IMPORT_BATCH_SIZE = 4096;
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private UserFileTransfer() {
+    }
+
+    /**
+     * Writes every user in a store to a file.
+     *
+     * @param store    The store to export.
+     * @param filePath The file to write, replaced if it exists.
+     * @param progress Called with the number of users written so far, every
+     *                 100,000 users and once at the end.
+     * @return The number of users written.
+     * @throws IOException If the file cannot be written, or a user cannot be stored in its format.
+     */
+    public static long exportUsers(UserStore store, String filePath, LongConsumer progress) throws IOException {
+        UserFileFormat format = formatOf(filePath);
+        long[] count = {0};
+        try (UserFileFormat.UserWriter writer = format.openWriter(openOutput(filePath), true)) {
+            try {
+                store.scan(user -> {
+                    try {
+                        write(user, format, writer, filePath, ++count[0], progress);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        progress.accept(count[0]);
+        return count[0];
+    }
+
+    /**
+     * Writes every record of the user files of a "file" store to a file,
+     * reading them one record at a time with their format's reader instead
+     * of loading them into a store. Records are copied as they are, so a
+     * user written again later in a user file, for example with an upgraded
+     * password hash, is exported again too; importing keeps the first record,
+     * see {@link #importUsers}.
+     *
+     * @param sourcePaths The user files to read; files that do not exist are skipped.
+     * @param filePath    The file to write, replaced if it exists.
+     * @param progress    Called with the number of records written so far,
+     *                    every 100,000 records and once at the end.
+     * @return The number of records written.
+     * @throws IOException If a file cannot be read or written, or a user cannot be stored in the format of the export.
+     */
+    public static long exportFiles(List<String> sourcePaths, String filePath, LongConsumer progress) throws IOException {
+        UserFileFormat format = formatOf(filePath);
+        long count = 0;
+        try (UserFileFormat.UserWriter writer = format.openWriter(openOutput(filePath), true)) {
+            for (String sourcePath : sourcePaths) {
+                if (!new File(sourcePath).isFile()) {
+                    continue;
+                }
+                try (UserFileFormat.UserReader reader = UserFileFormat.forFile(sourcePath).openReader(new FileInputStream(sourcePath))) {
+                    User user;
+                    while ((user = reader.read()) != null) {
+                        write(user, format, writer, filePath, ++count, progress);
+                    }
+                }
+            }
+        }
+        progress.accept(count);
+        return count;
+    }
+
+    /**
+     * Writes one user of an export.
+     *
+     * @param count The number of users written so far, including this one.
+     */
+    private static void write(User user, UserFileFormat format, UserFileFormat.UserWriter writer, String filePath,
+            long count, LongConsumer progress) throws IOException {
+        if (!format.canStore(user)) {
+            throw new IOException("User " + user.getUsername() + " cannot be stored in " + filePath);
+        }
+        writer.write(user);
+        if (count % PROGRESS_INTERVAL == 0) {
+            progress.accept(count);
+        }
+    }
+
+    /**
+     * Adds the users of a file to a store, one batch at a time. Users whose
+     * username is already in the store are skipped, and of several records
+     * with the same username the first one is kept. In a user file written
+     * by this system, a later record of a username only holds a stronger
+     * hash of the same password, made when the user logged in; that upgrade
+     * is made again at the user's next login. Records the store cannot hold,
+     * for example because a field holds a character its format reserves, are
+     * skipped and reported on the standard error stream.
+     *
+     * @param filePath The file to read.
+     * @param store    The store to add the users to.
+     * @param progress Called with the number of records read so far, every
+     *                 100,000 records and once at the end.
+     * @return The number of users added.
+     * @throws IOException If the file cannot be read, or the users cannot be stored.
+     */
+    public static long importUsers(String filePath, UserStore store, LongConsumer progress) throws IOException {
+        long read = 0;
+        long added = 0;
+        List<User> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try (UserFileFormat.UserReader reader = formatOf(filePath).openReader(openInput(filePath))) {
+            User user;
+            while ((user = reader.read()) != null) {
+                if (!store.canStore(user)) {
+                    System.err.println("Skipping user " + user.getUsername() + ", who cannot be stored in this store");
+                } else {
+                    batch.add(user);
+                }
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    added += store(batch, store);
+                }
+                if (++read % PROGRESS_INTERVAL == 0) {
+                    progress.accept(read);
+                }
+            }
+        }
+        added += store(batch, store);
+        progress.accept(read);
+        return added;
+    }
+
+    /**
+     * Adds one batch of an import to the store and empties it. The store
+     * skips a username that is taken, by an earlier batch or by an earlier
+     * record of this one.
+     *
+     * @return The number of users added.
+     */
+    private static long store(List<User> batch, UserStore store) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        boolean[] added;
+        try {
+            added = store.putAllIfAbsent(batch).join();
+        } catch (CompletionException e) {
+            throw new IOException("The users could not be stored", e.getCause());
+        }
+        batch.clear();
+        long count = 0;
+        for (boolean user : added) {
+            if (user) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the format of a file from its name, ignoring a ".gz" suffix.
+     *
+     * @param filePath The file.
+     * @return The format of the file.
+     */
+    static UserFileFormat formatOf(String filePath) {
+        return UserFileFormat.forFile(isGzip(filePath) ? filePath.substring(0, filePath.length() - 3) : filePath);
+    }
+
+    private static boolean isGzip(String filePath) {
+        return filePath.endsWith(".gz");
+    }
+
+    /**
+     * Opens a file for reading, decompressing it if its name ends in ".gz".
+     *
+     * @param filePath The file to read.
+     * @return The stream.
+     * @throws IOException If the file cannot be opened.
+     */
+    static InputStream openInput(String filePath) throws IOException {
+        InputStream in = new FileInputStream(filePath);
+        try {
+            return isGzip(filePath) ? new GZIPInputStream(in, 1 << 16) : in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file for writing, compressing it if its name ends in ".gz".
+     *
+     * @param filePath The file to write, replaced if it exists.
+     * @return The stream.
+     * @throws IOException If the file cannot be opened.
+     */
+    static OutputStream openOutput(String filePath) throws IOException {
+        OutputStream out = new FileOutputStream(filePath);
+        return isGzip(filePath) ? new GZIPOutputStream(out, 1 << 16) : out;
+    }
+
+    /**
+     * Exports or imports the user store picked by the system properties (see
+     * {@link LoginSystem}) from the command line:
+     * {@code UserFileTransfer export <file>} or {@code UserFileTransfer import <file>}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage: UserFileTransfer export|import <file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        LongConsumer progress = count -> System.out.println(count + " users, " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        if (args[0].equals("export") && System.getProperty("loginsystem.store", "file").equals("file")) {
+            // The user files can be read directly without loading every user
+            try {
+                System.out.println("Exported " + exportFiles(LoginSystem.defaultUserFiles(), args[1], progress) + " records to " + args[1]);
+            } catch (IOException e) {
+                System.err.println("An error occurred while transferring users: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        try (UserStore store = LoginSystem.openDefaultStore()) {
+            if (args[0].equals("export")) {
+                System.out.println("Exported " + exportUsers(store, args[1], progress) + " users to " + args[1]);
+            } else {
+                System.out.println("Imported " + importUsers(args[1], store, progress) + " users from " + args[1]);
+            }
+        } catch (IOException e) {
+            System.err.println("An error occurred while transferring users: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
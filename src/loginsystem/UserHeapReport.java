@@ -0,0 +1,46 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports the heap used by the user store picked by the system properties
+ * (see {@link LoginSystem}): the heap measured before and after the store is
+ * opened, and the size of the users as estimated by {@link User#footprintBytes()}.
+ */
+public final class UserHeapReport {
+
+    private UserHeapReport() {
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        long before = usedHeap();
+        try (UserStore store = LoginSystem.openDefaultStore()) {
+            long after = usedHeap();
+            LongAdder estimated = new LongAdder();
+            store.scan(user -> estimated.add(user.footprintBytes()));
+            long users = store.size();
+            long measured = after - before;
+            System.out.printf("%d users, %d KiB of heap (%d bytes per user)%n",
+                    users, measured / 1024, users == 0 ? 0 : measured / users);
+            System.out.printf("User records: %d KiB estimated (%d bytes per user), the rest is the store's index%n",
+                    estimated.sum() / 1024, users == 0 ? 0 : estimated.sum() / users);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package loginsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Stores registered users, keyed by username.
+ * Implementations are safe to use from many threads.
+ */
+public interface UserStore extends AutoCloseable {
+
+    /**
+     * Gets a user.
+     *
+     * @param username The username to look up.
+     * @return The user, or null if no user has that username.
+     */
+    User get(String username);
+
+    /**
+     * Checks if a user with the given username is stored.
+     *
+     * @param username The username to check.
+     * @return True if the username is taken, otherwise false.
+     */
+    boolean exists(String username);
+
+    /**
+     * Adds a user unless its username is already taken. Of several threads
+     * adding the same username, exactly one succeeds.
+     *
+     * @param user The user to add.
+     * @return A future that completes with false if the username was taken,
+     *         or with true once the user has been stored durably. If the
+     *         write fails, the future fails and the user is not kept.
+     */
+    CompletableFuture<Boolean> putIfAbsent(User user);
+
+    /**
+     * Adds many users, skipping those whose username is already taken.
+     * Implementations write the added users in one pass where they can.
+     *
+     * @param batch The users to add, with distinct usernames.
+     * @return A future that completes, once every added user has been stored
+     *         durably, with an array telling for each user whether it was added.
+     *         If the write fails, the future fails and none of the users are kept;
+     *         if only some of them could not be written, it fails with a
+     *         {@link PartialWriteException} telling which.
+     */
+    default CompletableFuture<boolean[]> putAllIfAbsent(List<User> batch) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            futures.add(putIfAbsent(user));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            boolean[] added = new boolean[futures.size()];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = futures.get(i).join();
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Adds a user, replacing any user with the same username.
+     *
+     * @param user The user to store.
+     * @return A future that completes once the user has been stored durably.
+     */
+    CompletableFuture<Void> put(User user);
+
+    /**
+     * Passes every stored user to the given action, in no particular order.
+     *
+     * @param action The action to run for each user.
+     */
+    void scan(Consumer<User> action);
+
+    /**
+     * Gets the number of stored users.
+     *
+     * @return The number of users.
+     */
+    long size();
+
+    /**
+     * Checks if a user can be stored without losing data, for example because
+     * a field holds a character the storage format reserves.
+     *
+     * @param user The user to check.
+     * @return True if the user can be stored, otherwise false.
+     */
+    default boolean canStore(User user) {
+        return true;
+    }
+
+    /**
+     * Writes anything still pending and releases the store's files.
+     */
+    @Override
+    void close();
+}
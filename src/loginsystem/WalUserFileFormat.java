@@ -0,0 +1,134 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.util.zip.CRC32C;
+
+/**
+ * The write-ahead log format of {@link WalUserStore}.
+ *
+ * The file starts with the magic bytes "LSWL" and a version byte. Each
+ * record is a varint length, the CRC-32C of the body as four big-endian
+ * bytes, then the body, encoded as in {@link BinaryUserFileFormat}. Reading
+ * stops at the first record that is cut short or fails its checksum, which
+ * is where a crash interrupted a write.
+ */
+public final class WalUserFileFormat implements UserFileFormat {
+    static final byte[] MAGIC = {'L', 'S', 'W', 'L'};
+    static final int VERSION = 1;
+
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    @Override
+    public UserReader openReader(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        try {
+            data.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a user log file");
+                }
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported user log version: " + version);
+            }
+        } catch (EOFException e) {
+            magic = null; // Crashed before the header was written: an empty log
+        }
+        boolean empty = magic == null;
+        return new UserReader() {
+            private final CRC32C crc = new CRC32C();
+            private byte[] record = new byte[256];
+            private boolean done = empty;
+
+            @Override
+            public User read() throws IOException {
+                if (done) {
+                    return null;
+                }
+                try {
+                    int length = BinaryUserFileFormat.readVarInt(data);
+                    if (length < 0) {
+                        done = true;
+                        return null;
+                    }
+                    if (length > MAX_RECORD_SIZE) {
+                        return torn();
+                    }
+                    int checksum = data.readInt();
+                    if (record.length < length) {
+                        record = new byte[Math.max(length, record.length * 2)];
+                    }
+                    data.readFully(record, 0, length);
+                    crc.reset();
+                    crc.update(record, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        return torn();
+                    }
+                    return BinaryUserFileFormat.decode(record, 0, length);
+                } catch (EOFException e) {
+                    return torn();
+                }
+            }
+
+            private User torn() {
+                System.err.println("Ignoring a torn or corrupt record at the end of the user log");
+                done = true;
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                data.close();
+            }
+        };
+    }
+
+    @Override
+    public UserWriter openWriter(OutputStream out, boolean writeHeader) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        if (writeHeader) {
+            buffered.write(MAGIC);
+            buffered.write(VERSION);
+        }
+        return new UserWriter() {
+            private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            private final CRC32C crc = new CRC32C();
+
+            @Override
+            public void write(User user) throws IOException {
+                record.reset();
+                BinaryUserFileFormat.encode(user, record);
+                crc.reset();
+                crc.update(record.toByteArray(), 0, record.size());
+                int checksum = (int) crc.getValue();
+                BinaryUserFileFormat.writeVarInt(buffered, record.size());
+                buffered.write(checksum >>> 24);
+                buffered.write(checksum >>> 16);
+                buffered.write(checksum >>> 8);
+                buffered.write(checksum);
+                record.writeTo(buffered);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                buffered.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                buffered.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean canStore(User user) {
+        return true;
+    }
+}
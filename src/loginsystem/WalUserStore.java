@@ -0,0 +1,395 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A user store persisted as a snapshot plus a write-ahead log.
+ *
+ * Every user is held in memory. Writes are appended to a checksummed log
+ * ({@link WalUserFileFormat}) through a {@link UserAppendLog}, in batches
+ * that are synced to disk. A background compactor periodically starts a new
+ * log, replays the closed logs over the last snapshot into a new snapshot (a
+ * {@link BinaryUserFileFormat} file) and deletes the files the snapshot
+ * covers, so startup only has to read one snapshot and a short log tail
+ * however long the history is. The snapshot is built from the files rather
+ * than the users in memory, so it only holds writes that reached a log.
+ * Each snapshot is timed in the {@link LoginMetrics} as
+ * {@link LoginMetrics.Operation#COMPACT}; recovery is part of opening the
+ * store, timed as {@link LoginMetrics.Operation#OPEN_STORE} by
+ * {@link LoginSystem}.
+ *
+ * For a store named users.db, the files are users.db.snapshot-N and
+ * users.db.wal-N, where N is a generation number: snapshot N holds every
+ * write made before log N was started.
+ */
+public final class WalUserStore implements UserStore {
+    private static final String SNAPSHOT = ".snapshot-";
+    private static final String WAL = ".wal-";
+
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final String baseName;
+    private final UserFileFormat walFormat = new WalUserFileFormat();
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final boolean fsync;
+    private final long compactMinRecords;
+    private final ReadWriteLock logLock = new ReentrantReadWriteLock(); // Write lock held while the log is switched
+    private final AtomicLong logRecords = new AtomicLong(); // Records written since the last snapshot
+    private final ScheduledExecutorService compactor;
+    private UserAppendLog log; // Guarded by logLock
+    private long generation; // Of the current log, guarded by logLock
+    private boolean closed; // Guarded by logLock
+
+    /**
+     * Opens the store: loads the latest snapshot, replays the logs written
+     * after it and starts a new log.
+     *
+     * @param filePath             The base name of the store's files.
+     * @param maxBatchSize         The most users written to the log in one batch.
+     * @param maxDelayMillis       How long a batch waits for more users before it is written.
+     * @param fsync                True to sync the log to disk after each batch.
+     * @param compactIntervalMillis How often the compactor checks whether to write a snapshot, or 0 to never compact in the background.
+     * @param compactMinRecords    The fewest log records that make the compactor write a snapshot.
+     * @throws IOException If a snapshot or log cannot be read, or the new log cannot be created.
+     */
+    public WalUserStore(String filePath, int maxBatchSize, long maxDelayMillis, boolean fsync,
+            long compactIntervalMillis, long compactMinRecords) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath();
+        this.directory = path.getParent();
+        this.baseName = path.getFileName().toString();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.fsync = fsync;
+        this.compactMinRecords = compactMinRecords;
+        Files.createDirectories(directory);
+        recover();
+        if (compactIntervalMillis > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "user-wal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactIfNeeded, compactIntervalMillis, compactIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    /**
+     * Loads the latest snapshot and replays the logs after it, then starts a new log.
+     */
+    private void recover() throws IOException {
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+        TreeMap<Long, Path> logs = list(WAL);
+        long snapshotGeneration = 0;
+        if (!snapshots.isEmpty()) {
+            snapshotGeneration = snapshots.lastKey();
+            try (UserFileFormat.UserReader reader = new BinaryUserFileFormat().openReader(Files.newInputStream(snapshots.lastEntry().getValue()))) {
+                User user;
+                while ((user = reader.read()) != null) {
+                    users.put(user.getUsername(), user);
+                }
+            }
+        }
+        long replayed = 0;
+        for (Path logFile : logs.tailMap(snapshotGeneration, true).values()) {
+            try (UserFileFormat.UserReader reader = walFormat.openReader(Files.newInputStream(logFile))) {
+                User user;
+                while ((user = reader.read()) != null) {
+                    users.put(user.getUsername(), user);
+                    replayed++;
+                }
+            }
+        }
+        logRecords.set(replayed);
+        generation = Math.max(snapshotGeneration, logs.isEmpty() ? 0 : logs.lastKey()) + 1;
+        log = openLog(generation);
+    }
+
+    /**
+     * Lists the store's files of one kind by generation.
+     */
+    private TreeMap<Long, Path> list(String kind) throws IOException {
+        Pattern pattern = Pattern.compile(Pattern.quote(baseName + kind) + "(\\d+)");
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, baseName + kind + "*")) {
+            for (Path file : stream) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private UserAppendLog openLog(long logGeneration) throws IOException {
+        UserAppendLog newLog = new UserAppendLog(directory.resolve(baseName + WAL + logGeneration).toString(), walFormat, maxBatchSize, maxDelayMillis, fsync);
+        if (fsync) {
+            syncDirectory(); // Otherwise a synced record could be lost with the new log's directory entry
+        }
+        return newLog;
+    }
+
+    /**
+     * Syncs the directory, so files created or renamed in it survive a crash.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms, such as Windows, cannot open a directory; there
+            // the rename or creation is as durable as the file system makes it
+        }
+    }
+
+    @Override
+    public User get(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putIfAbsent(User user) {
+        logLock.readLock().lock();
+        try {
+            List<CompletableFuture<Void>> written = new ArrayList<>(1);
+            // The record is queued while the map entry is locked, so the log
+            // holds the writes to a username in the order the map saw them
+            users.computeIfAbsent(user.getUsername(), username -> {
+                written.add(append(List.of(user)));
+                return user;
+            });
+            if (written.isEmpty()) {
+                return CompletableFuture.completedFuture(false); // Another thread registered the same username first
+            }
+            return written.get(0).whenComplete((done, e) -> {
+                if (e != null) {
+                    users.remove(user.getUsername(), user); // Not logged, so the username is free again
+                }
+            }).thenApply(done -> true);
+        } finally {
+            logLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<boolean[]> putAllIfAbsent(List<User> batch) {
+        logLock.readLock().lock();
+        try {
+            boolean[] added = new boolean[batch.size()];
+            List<User> toWrite = new ArrayList<>(batch.size());
+            List<CompletableFuture<Void>> written = new ArrayList<>(batch.size());
+            for (int i = 0; i < added.length; i++) {
+                User user = batch.get(i);
+                int index = i;
+                // Queued while the map entry is locked, as in putIfAbsent; the
+                // log still writes the queued records together in one batch
+                users.computeIfAbsent(user.getUsername(), username -> {
+                    written.add(append(List.of(user)));
+                    toWrite.add(user);
+                    added[index] = true;
+                    return user;
+                });
+            }
+            if (toWrite.isEmpty()) {
+                return CompletableFuture.completedFuture(added);
+            }
+            return CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0])).whenComplete((done, e) -> {
+                if (e != null) {
+                    for (User user : toWrite) {
+                        users.remove(user.getUsername(), user); // Not logged, so the username is free again
+                    }
+                }
+            }).thenApply(done -> added);
+        } finally {
+            logLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> put(User user) {
+        logLock.readLock().lock();
+        try {
+            List<CompletableFuture<Void>> written = new ArrayList<>(1);
+            users.compute(user.getUsername(), (username, old) -> {
+                written.add(append(List.of(user)));
+                return user;
+            });
+            return written.get(0);
+        } finally {
+            logLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues users on the current log. Callers hold the read lock.
+     */
+    private CompletableFuture<Void> append(List<User> batch) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The user store is closed"));
+        }
+        logRecords.addAndGet(batch.size());
+        return log.appendAll(batch);
+    }
+
+    /**
+     * Writes a snapshot if enough has been logged since the last one.
+     */
+    private void compactIfNeeded() {
+        if (logRecords.get() >= compactMinRecords) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("An error occurred while compacting the user log: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts a new log, writes a snapshot of everything logged before it and
+     * deletes the files the snapshot replaces. Writes carry on while the
+     * snapshot is written; they go to the new log, which is replayed over
+     * the snapshot.
+     *
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public synchronized void compact() throws IOException {
+        long snapshotGeneration;
+        long covered;
+        UserAppendLog oldLog;
+        logLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            snapshotGeneration = generation + 1;
+            UserAppendLog newLog = openLog(snapshotGeneration);
+            oldLog = log;
+            log = newLog;
+            generation = snapshotGeneration;
+            covered = logRecords.get(); // The records queued on the old logs
+        } finally {
+            logLock.writeLock().unlock();
+        }
+        oldLog.close(); // Every write queued before the switch is now in the old log, or has failed
+
+        long start = LoginMetrics.start();
+        boolean written = false;
+        try {
+            writeSnapshot(snapshotGeneration);
+            written = true;
+        } finally {
+            LoginMetrics.record(LoginMetrics.Operation.COMPACT, start, written);
+        }
+        // Only now, so the compactor retries a snapshot that failed
+        logRecords.addAndGet(-covered);
+
+        for (Path old : list(SNAPSHOT).headMap(snapshotGeneration).values()) {
+            Files.deleteIfExists(old);
+        }
+        for (Path old : list(WAL).headMap(snapshotGeneration).values()) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * Writes a snapshot from the latest older snapshot with the logs before
+     * the new one replayed over it, as recovery would read them. Only the
+     * logged users are held in memory.
+     */
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        Map.Entry<Long, Path> base = list(SNAPSHOT).lowerEntry(snapshotGeneration);
+        long baseGeneration = base != null ? base.getKey() : 0;
+        Map<String, User> logged = new LinkedHashMap<>();
+        for (Path logFile : list(WAL).subMap(baseGeneration, true, snapshotGeneration, false).values()) {
+            try (UserFileFormat.UserReader reader = walFormat.openReader(Files.newInputStream(logFile))) {
+                User user;
+                while ((user = reader.read()) != null) {
+                    logged.put(user.getUsername(), user);
+                }
+            }
+        }
+        Path snapshot = directory.resolve(baseName + SNAPSHOT + snapshotGeneration);
+        Path temp = directory.resolve(baseName + SNAPSHOT + snapshotGeneration + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+                UserFileFormat.UserWriter writer = new BinaryUserFileFormat().openWriter(out, true)) {
+            if (base != null) {
+                try (UserFileFormat.UserReader reader = new BinaryUserFileFormat().openReader(Files.newInputStream(base.getValue()))) {
+                    User user;
+                    while ((user = reader.read()) != null) {
+                        User newer = logged.remove(user.getUsername());
+                        writer.write(newer != null ? newer : user);
+                    }
+                }
+            }
+            for (User user : logged.values()) {
+                writer.write(user);
+            }
+            writer.flush();
+            out.getChannel().force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(); // The older files must not be deleted before the rename is durable
+    }
+
+    @Override
+    public void scan(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return users.size();
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            logLock.writeLock().unlock();
+        }
+        log.close();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BadPasswordFilter}.
+ */
+public class BadPasswordFilterTest {
+    private static final int ENTRIES = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dictionary;
+    private File index;
+    private File sidecar;
+
+    @Before
+    public void setUp() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            lines.add("password" + i);
+        }
+        dictionary = folder.newFile("passwords.txt");
+        Files.write(dictionary.toPath(), lines, StandardCharsets.UTF_8);
+        index = new File(folder.getRoot(), "passwords.idx");
+        sidecar = new File(folder.getRoot(), "passwords.bloom");
+    }
+
+    private void assertExact(BadPasswordFilter filter) {
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(filter.isBadPassword("password" + i));
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertFalse(filter.isBadPassword("correct horse battery staple " + i));
+        }
+    }
+
+    @Test
+    public void testWithDictionary() throws IOException {
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertExact(filter);
+        assertTrue(sidecar.isFile());
+    }
+
+    @Test
+    public void testWithMappedIndex() throws IOException {
+        MappedBadPasswordIndex.build(dictionary.getPath(), index.getPath());
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertExact(filter);
+    }
+
+    @Test
+    public void testStaleIndexIsRebuilt() throws IOException {
+        MappedBadPasswordIndex.build(dictionary.getPath(), index.getPath());
+        assertTrue(index.setLastModified(dictionary.lastModified() - 10_000));
+        Files.write(dictionary.toPath(), List.of("added later"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertTrue(filter.isBadPassword("added later"));
+        assertExact(filter);
+        assertEquals(ENTRIES + 1, MappedBadPasswordIndex.open(index.getPath()).size());
+    }
+
+    @Test
+    public void testCorruptIndexIsRebuilt() throws IOException {
+        Files.write(index.toPath(), "not an index".getBytes(StandardCharsets.UTF_8));
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertExact(filter);
+        assertEquals(ENTRIES, MappedBadPasswordIndex.open(index.getPath()).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptIndexWithoutDictionaryFails() throws IOException {
+        Files.write(index.toPath(), "not an index".getBytes(StandardCharsets.UTF_8));
+        assertTrue(dictionary.delete());
+        BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testUnreadableDictionaryFailsClosed() throws IOException {
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertTrue(dictionary.delete());
+        filter.isBadPassword("password0"); // Hits the Bloom filter, so the exact index is needed
+    }
+
+    @Test
+    public void testSidecarIsReused() throws IOException {
+        BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        long written = sidecar.lastModified();
+        assertTrue(sidecar.setLastModified(written - 10_000));
+        BadPasswordFilter filter = BadPasswordFilter.open(dictionary.getPath(), index.getPath(), sidecar.getPath(), 0.01);
+        assertEquals(written - 10_000, sidecar.lastModified());
+        assertExact(filter);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingDictionaryFails() throws IOException {
+        BadPasswordFilter.open(new File(folder.getRoot(), "missing.txt").getPath(), index.getPath(), sidecar.getPath(), 0.01);
+    }
+}
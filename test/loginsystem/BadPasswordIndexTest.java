@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BadPasswordIndex}.
+ */
+public class BadPasswordIndexTest {
+    private static final int ENTRIES = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dictionary;
+
+    @Before
+    public void setUp() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            lines.add("password" + i);
+        }
+        dictionary = folder.newFile("passwords.txt");
+        Files.write(dictionary.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testNoFalseNegatives() throws IOException {
+        BadPasswordIndex index = BadPasswordIndex.load(dictionary.getPath());
+        assertEquals(ENTRIES, index.size());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(index.contains("password" + i));
+            assertTrue(index.containsFingerprint(BadPasswordIndex.fingerprint("password" + i)));
+        }
+    }
+
+    @Test
+    public void testUnlistedPasswordsAreNotFound() throws IOException {
+        BadPasswordIndex index = BadPasswordIndex.load(dictionary.getPath());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertFalse(index.contains("correct horse battery staple " + i));
+        }
+    }
+
+    @Test
+    public void testEmptyIndexContainsNothing() {
+        BadPasswordIndex index = BadPasswordIndex.empty();
+        assertEquals(0, index.size());
+        assertFalse(index.contains("password0"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingDictionaryFails() throws IOException {
+        BadPasswordIndex.load(new File(folder.getRoot(), "missing.txt").getPath());
+    }
+}
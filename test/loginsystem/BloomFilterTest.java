@@ -0,0 +1,104 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BloomFilter}.
+ */
+public class BloomFilterTest {
+    private static final int ENTRIES = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static BloomFilter filled() {
+        BloomFilter filter = BloomFilter.create(ENTRIES, 0.01);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.put(BadPasswordIndex.fingerprint("password" + i));
+        }
+        return filter;
+    }
+
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = filled();
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(filter.mightContain(BadPasswordIndex.fingerprint("password" + i)));
+        }
+        assertEquals(ENTRIES, filter.getInsertions());
+    }
+
+    @Test
+    public void testFalsePositiveRateNearTarget() {
+        BloomFilter filter = filled();
+        int positives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(BadPasswordIndex.fingerprint("other" + i))) {
+                positives++;
+            }
+        }
+        assertTrue("False positive rate " + positives / 100_000.0, positives < 3_000);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    public void testWriteAndReadBack() throws IOException {
+        BloomFilter filter = filled();
+        File file = new File(folder.getRoot(), "filter.bloom");
+        filter.writeTo(file, 42);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        BloomFilter read = BloomFilter.readFrom(file, 42);
+        assertNotNull(read);
+        assertEquals(filter.getNumBits(), read.getNumBits());
+        assertEquals(filter.getNumHashes(), read.getNumHashes());
+        assertEquals(filter.getInsertions(), read.getInsertions());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(read.mightContain(BadPasswordIndex.fingerprint("password" + i)));
+        }
+    }
+
+    @Test
+    public void testReadFromOtherSourceIsIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "filter.bloom");
+        filled().writeTo(file, 42);
+        assertNull(BloomFilter.readFrom(file, 43));
+        assertNull(BloomFilter.readFrom(new File(folder.getRoot(), "missing.bloom"), 42));
+    }
+
+    @Test
+    public void testCorruptHeaderIsIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "filter.bloom");
+        filled().writeTo(file, 42);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(28); // The word count
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        assertNull(BloomFilter.readFrom(file, 42));
+    }
+
+    @Test
+    public void testTruncatedFileIsIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "filter.bloom");
+        filled().writeTo(file, 42);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+        assertNull(BloomFilter.readFrom(file, 42));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateRejectsBadRate() {
+        BloomFilter.create(100, 1.5);
+    }
+}
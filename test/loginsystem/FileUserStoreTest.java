@@ -0,0 +1,172 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FileUserStore}.
+ */
+public class FileUserStoreTest {
+    private static final int USERS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static FileUserStore open(File file, UserFileFormat format) {
+        return new FileUserStore(file.getPath(), format, 16, 1, false);
+    }
+
+    private static void fill(FileUserStore store) {
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+        }
+    }
+
+    private static void assertFilled(FileUserStore store) {
+        assertEquals(USERS, store.size());
+        for (int i = 0; i < USERS; i++) {
+            TestUsers.assertSameUser(TestUsers.user("user" + i), store.get("user" + i));
+        }
+    }
+
+    private void testReopen(UserFileFormat format, String name) {
+        File file = new File(folder.getRoot(), name);
+        try (FileUserStore store = open(file, format)) {
+            fill(store);
+        }
+        try (FileUserStore store = open(file, format)) {
+            assertFilled(store);
+        }
+    }
+
+    @Test
+    public void testTextReopen() {
+        testReopen(new TextUserFileFormat(';'), "users.txt");
+    }
+
+    @Test
+    public void testBinaryReopen() {
+        testReopen(new BinaryUserFileFormat(), "users.bin");
+    }
+
+    @Test
+    public void testCsvReopen() {
+        testReopen(new CsvUserFileFormat(), "users.csv");
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsFirstUser() {
+        File file = new File(folder.getRoot(), "users.txt");
+        try (FileUserStore store = open(file, new TextUserFileFormat(';'))) {
+            assertTrue(store.putIfAbsent(TestUsers.user("alice")).join());
+            assertFalse(store.putIfAbsent(new User("Other", "Other", "alice", TestUsers.DIGEST, "other@example.com")).join());
+            assertEquals("alice@example.com", store.get("alice").getEmail());
+            assertTrue(store.exists("alice"));
+            assertFalse(store.exists("bob"));
+        }
+    }
+
+    @Test
+    public void testReplacementSurvivesReopen() {
+        File file = new File(folder.getRoot(), "users.bin");
+        User changed = new User("New", "Name", "user1", TestUsers.PBKDF2, "new@example.com");
+        try (FileUserStore store = open(file, new BinaryUserFileFormat())) {
+            fill(store);
+            store.put(changed).join();
+        }
+        try (FileUserStore store = open(file, new BinaryUserFileFormat())) {
+            assertEquals(USERS, store.size());
+            TestUsers.assertSameUser(changed, store.get("user1"));
+        }
+    }
+
+    @Test
+    public void testTornTextLineIsDropped() throws IOException {
+        File file = new File(folder.getRoot(), "users.txt");
+        try (FileUserStore store = open(file, new TextUserFileFormat(';'))) {
+            fill(store);
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("Torn;Line;torn".getBytes(StandardCharsets.UTF_8));
+        }
+        try (FileUserStore store = open(file, new TextUserFileFormat(';'))) {
+            assertFilled(store);
+            assertTrue(store.putIfAbsent(TestUsers.user("after")).join());
+        }
+        try (FileUserStore store = open(file, new TextUserFileFormat(';'))) {
+            assertNull(store.get("torn"));
+            TestUsers.assertSameUser(TestUsers.user("after"), store.get("after"));
+            assertEquals(USERS + 1, store.size());
+        }
+    }
+
+    @Test
+    public void testTornBinaryRecordIsDropped() throws IOException {
+        File file = new File(folder.getRoot(), "users.bin");
+        try (FileUserStore store = open(file, new BinaryUserFileFormat())) {
+            fill(store);
+            assertTrue(store.putIfAbsent(TestUsers.user("torn")).join());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        try (FileUserStore store = open(file, new BinaryUserFileFormat())) {
+            assertFilled(store);
+            assertNull(store.get("torn"));
+            assertTrue(store.putIfAbsent(TestUsers.user("after")).join());
+        }
+        try (FileUserStore store = open(file, new BinaryUserFileFormat())) {
+            TestUsers.assertSameUser(TestUsers.user("after"), store.get("after"));
+            assertEquals(USERS + 1, store.size());
+        }
+    }
+
+    @Test
+    public void testMissingFileIsEmpty() {
+        File file = new File(folder.getRoot(), "users.txt");
+        try (FileUserStore store = open(file, new TextUserFileFormat(';'))) {
+            assertEquals(0, store.size());
+            assertFalse(store.exists("alice"));
+        }
+    }
+
+    @Test
+    public void testCorruptRecordStopsOpen() throws IOException {
+        File file = new File(folder.getRoot(), "users.bin");
+        try (FileOutputStream out = new FileOutputStream(file);
+                UserFileFormat.UserWriter writer = new BinaryUserFileFormat().openWriter(out, true)) {
+            for (int i = 0; i < 3; i++) {
+                writer.write(TestUsers.user("user" + i));
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        BinaryUserFileFormat.encode(TestUsers.user("user0"), body);
+        int record = BinaryUserFileFormat.varIntSize(body.size()) + body.size();
+        int tag = BinaryUserFileFormat.varIntSize(body.size()) + "First".length() + "Last".length() + "user0".length() + 3;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(BinaryUserFileFormat.HEADER_SIZE + record + tag); // The password tag of the second user
+            raf.write(0x7F);
+        }
+        long length = file.length();
+        try {
+            open(file, new BinaryUserFileFormat()).close();
+            fail("A store with a corrupt record was opened");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage().contains("unknown password tag"));
+        }
+        assertEquals(length, file.length());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link KeyValueUserStore}.
+ */
+public class KeyValueUserStoreTest {
+    private static final int USERS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void fill(KeyValueUserStore store) {
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+        }
+    }
+
+    private static void assertFilled(KeyValueUserStore store) {
+        assertEquals(USERS, store.size());
+        for (int i = 0; i < USERS; i++) {
+            TestUsers.assertSameUser(TestUsers.user("user" + i), store.get("user" + i));
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File file = new File(folder.getRoot(), "users.db");
+        User changed = new User("New", "Name", "user1", TestUsers.PBKDF2, "new@example.com");
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            fill(store);
+            assertFalse(store.putIfAbsent(TestUsers.user("user0")).join());
+            store.put(changed).join();
+        }
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            assertEquals(USERS, store.size());
+            TestUsers.assertSameUser(changed, store.get("user1"));
+            TestUsers.assertSameUser(TestUsers.user("user2"), store.get("user2"));
+            assertNull(store.get("missing"));
+        }
+    }
+
+    @Test
+    public void testPutAllIfAbsent() throws IOException {
+        File file = new File(folder.getRoot(), "users.db");
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            assertTrue(store.putIfAbsent(TestUsers.user("bob")).join());
+            boolean[] added = store.putAllIfAbsent(Arrays.asList(
+                    TestUsers.user("alice"), TestUsers.user("bob"), TestUsers.user("alice"))).join();
+            assertArrayEquals(new boolean[] {true, false, false}, added);
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws IOException {
+        File file = new File(folder.getRoot(), "users.db");
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            fill(store);
+            assertTrue(store.putIfAbsent(TestUsers.user("torn")).join());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            assertFilled(store);
+            assertNull(store.get("torn"));
+            assertTrue(store.putIfAbsent(TestUsers.user("after")).join());
+        }
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            TestUsers.assertSameUser(TestUsers.user("after"), store.get("after"));
+            assertEquals(USERS + 1, store.size());
+        }
+    }
+
+    @Test
+    public void testHugeLengthIsTruncated() throws IOException {
+        File file = new File(folder.getRoot(), "users.db");
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            fill(store);
+        }
+        long length = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F});
+        }
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false)) {
+            assertFilled(store);
+        }
+        assertEquals(length, file.length());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFileIsRejected() throws IOException {
+        File file = folder.newFile("users.txt");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("First;Last;alice;hash;alice@example.com\n".getBytes("UTF-8"));
+        }
+        new KeyValueUserStore(file.getPath(), false).close();
+    }
+
+    @Test
+    public void testCacheCountsHits() throws IOException {
+        File file = new File(folder.getRoot(), "users.db");
+        try (KeyValueUserStore store = new KeyValueUserStore(file.getPath(), false, 16)) {
+            fill(store);
+            long hits = store.getCache().getHits();
+            store.get("user0");
+            store.get("user0");
+            assertTrue(store.getCache().getHits() > hits);
+            assertTrue(store.getCache().size() <= 16);
+            TestUsers.assertSameUser(TestUsers.user("user0"), store.get("user0"));
+        }
+    }
+}
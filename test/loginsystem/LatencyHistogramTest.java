@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Gets the value a histogram reports for one recorded value, with a much
+     * larger value recorded after it so the maximum does not clip the bucket.
+     */
+    private static long reported(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(1L << 39);
+        return histogram.snapshot().getPercentile(50);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, reported(value));
+        }
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        assertEquals(33, reported(32));
+        assertEquals(33, reported(33));
+        assertEquals(35, reported(34));
+        assertEquals(63, reported(63));
+        assertEquals(67, reported(64));
+        assertEquals(67, reported(67));
+        assertEquals(71, reported(68));
+        assertEquals(1023, reported(1023));
+        assertEquals(1087, reported(1024));
+    }
+
+    @Test
+    public void testRelativeErrorIsBounded() {
+        for (long value = 32; value < 1L << 36; value = value * 3 / 2 + 1) {
+            long reported = reported(value);
+            assertTrue(reported >= value);
+            assertTrue("Value " + value + " reported as " + reported, reported - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void testPercentileIsClippedToMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        assertEquals(1000, histogram.snapshot().getPercentile(99));
+        assertEquals(1000, histogram.snapshot().getMax());
+    }
+
+    @Test
+    public void testPercentileRanks() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(20, snapshot.getCount());
+        assertEquals(10.5, snapshot.getMean(), 1e-9);
+        assertEquals(10, snapshot.getPercentile(50));
+        assertEquals(19, snapshot.getPercentile(95));
+        assertEquals(20, snapshot.getPercentile(100));
+        assertEquals(1, snapshot.getPercentile(0));
+    }
+
+    @Test
+    public void testNegativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentile(100));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(0, snapshot.getMean(), 0);
+    }
+}
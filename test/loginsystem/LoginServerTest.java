@@ -0,0 +1,77 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LoginServer}.
+ */
+public class LoginServerTest {
+    private LoginSystem loginSystem;
+    private LoginServer server;
+    private Thread serving;
+
+    @Before
+    public void setUp() throws IOException {
+        PasswordHasher hasher = new Sha256PasswordHasher();
+        UserStore store = new InMemoryUserStore();
+        store.putIfAbsent(new User("Alice", "Smith", "alice", hasher.hash("Secret#123"), "alice@example.com")).join();
+        loginSystem = new LoginSystem(store, hasher, null);
+        server = new LoginServer(loginSystem, InetAddress.getLoopbackAddress(), 0, 10_000);
+        serving = new Thread(server::serve, "login-server-test");
+        serving.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        server.close();
+        serving.join(5_000);
+        loginSystem.close();
+    }
+
+    @Test
+    public void testRequests() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            assertEquals("YES", request(in, out, "EXISTS\talice"));
+            assertEquals("NO", request(in, out, "EXISTS\tbob"));
+            assertEquals("WRONG_PASSWORD", request(in, out, "LOGIN\talice\twrong"));
+            assertEquals("UNKNOWN_USER", request(in, out, "LOGIN\tbob\tSecret#123"));
+            String login = request(in, out, "LOGIN\talice\tSecret#123");
+            assertTrue(login, login.startsWith("SUCCESS\t"));
+            String token = login.substring("SUCCESS\t".length());
+            assertEquals("VALID\talice", request(in, out, "SESSION\t" + token));
+            assertEquals("OK", request(in, out, "LOGOUT\t" + token));
+            assertEquals("INVALID", request(in, out, "SESSION\t" + token));
+            assertTrue(request(in, out, "NOPE").startsWith("ERROR"));
+        }
+    }
+
+    @Test
+    public void testServeReturnsWhenClosed() throws InterruptedException {
+        server.close();
+        serving.join(5_000);
+        assertFalse(serving.isAlive());
+    }
+
+    private static String request(BufferedReader in, Writer out, String line) throws IOException {
+        out.write(line + "\n");
+        out.flush();
+        return in.readLine();
+    }
+}
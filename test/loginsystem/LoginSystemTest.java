@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LoginSystem}. The bad password checks use the project's
+ * dictbadpass.txt, so the tests run from the project directory.
+ */
+public class LoginSystemTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private UserStore store;
+    private LoginSystem loginSystem;
+
+    @Before
+    public void setUp() {
+        store = new FileUserStore(new File(folder.getRoot(), "users.txt").getPath(), new TextUserFileFormat(';'), 16, 1, false);
+        loginSystem = new LoginSystem(store, new Sha256PasswordHasher(), null);
+    }
+
+    @After
+    public void tearDown() {
+        loginSystem.close();
+        store.close();
+    }
+
+    private static User record(String username, String password) {
+        return new User("First", "Last", username, password, username + "@example.com");
+    }
+
+    @Test
+    public void testRegisterUsers() {
+        assertTrue(loginSystem.registerUser("First", "Last", "taken", "Taken#Pass123", "taken@example.com"));
+        char[] chars = new char[User.MAX_FIELD_BYTES + 1];
+        Arrays.fill(chars, 'x');
+        List<User> records = Arrays.asList(
+                record("alice", "Alice#Pass123"),
+                record("alice", "Other#Pass123"),
+                record("taken", "Taken#Pass123"),
+                record("weak", "qwerty"),
+                record("long", new String(chars)),
+                new User("Semi;colon", "Last", "semi", "Semi#Pass123", "semi@example.com"),
+                record("bob", "Bob#Pass123"));
+        List<RegistrationResult> results = loginSystem.registerUsers(records.iterator());
+        assertEquals(Arrays.asList(
+                RegistrationResult.REGISTERED,
+                RegistrationResult.DUPLICATE,
+                RegistrationResult.USERNAME_TAKEN,
+                RegistrationResult.BAD_PASSWORD,
+                RegistrationResult.FIELD_TOO_LONG,
+                RegistrationResult.UNSUPPORTED_CHARACTER,
+                RegistrationResult.REGISTERED), results);
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void testVerify() {
+        loginSystem.registerUsers(Arrays.asList(record("alice", "Alice#Pass123"), record("bob", "Bob#Pass123")).iterator());
+        List<AuthResult> results = loginSystem.verify(Arrays.asList(
+                new Credential("alice", "Alice#Pass123"),
+                new Credential("bob", "Alice#Pass123"),
+                new Credential("carol", "Carol#Pass123")));
+        assertEquals(Arrays.asList(AuthResult.SUCCESS, AuthResult.WRONG_PASSWORD, AuthResult.UNKNOWN_USER), results);
+    }
+
+    @Test
+    public void testRegisterUserRefusesBadPassword() {
+        assertFalse(loginSystem.registerUser("First", "Last", "weak", "qwerty", "weak@example.com"));
+        assertFalse(loginSystem.isRegistered("weak"));
+        assertTrue(loginSystem.registerUser("First", "Last", "strong", "Strong#Pass123", "strong@example.com"));
+        assertTrue(loginSystem.authenticate("strong", "Strong#Pass123"));
+        assertFalse(loginSystem.authenticate("strong", "qwerty"));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LoginThrottle}.
+ */
+public class LoginThrottleTest {
+
+    @Test
+    public void testUserThrottledAfterFailures() {
+        LoginThrottle throttle = new LoginThrottle(60_000, 3, 0, 1024);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(throttle.isThrottled("alice", "10.0.0.1"));
+            throttle.recordFailure("alice", "10.0.0.1");
+        }
+        assertTrue(throttle.isThrottled("alice", "10.0.0.1"));
+        assertTrue(throttle.isThrottled("alice", "10.0.0.2"));
+        assertFalse(throttle.isThrottled("bob", "10.0.0.1"));
+    }
+
+    @Test
+    public void testCheckingCountsNothing() {
+        LoginThrottle throttle = new LoginThrottle(60_000, 3, 3, 1024);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(throttle.isThrottled("alice", "10.0.0.1"));
+        }
+        assertEquals(0, throttle.getFailures("alice"), 0);
+    }
+
+    @Test
+    public void testSourcesNotThrottledByDefault() {
+        LoginThrottle throttle = new LoginThrottle(60_000, 3, 0, 1024);
+        for (int i = 0; i < 100; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1");
+        }
+        assertFalse(throttle.isThrottled("someone", "10.0.0.1"));
+    }
+
+    @Test
+    public void testSourceThrottledWhenEnabled() {
+        LoginThrottle throttle = new LoginThrottle(60_000, 3, 5, 1024);
+        for (int i = 0; i < 5; i++) {
+            assertFalse(throttle.isThrottled("someone", "10.0.0.1"));
+            throttle.recordFailure("user" + i, "10.0.0.1");
+        }
+        assertTrue(throttle.isThrottled("someone", "10.0.0.1"));
+        assertFalse(throttle.isThrottled("someone", "10.0.0.2"));
+        assertFalse(throttle.isThrottled("someone", null));
+    }
+
+    @Test
+    public void testFailuresExpire() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(50, 3, 0, 1024);
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("alice", null);
+        }
+        assertTrue(throttle.isThrottled("alice", null));
+        Thread.sleep(150);
+        assertFalse(throttle.isThrottled("alice", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyWindow() {
+        new LoginThrottle(0, 3, 0, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyWidth() {
+        new LoginThrottle(60_000, 3, 0, 0);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MappedBadPasswordIndex}.
+ */
+public class MappedBadPasswordIndexTest {
+    private static final int ENTRIES = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dictionary;
+    private File index;
+
+    @Before
+    public void setUp() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            lines.add("password" + i);
+        }
+        lines.add("password0"); // A duplicate is stored once
+        dictionary = folder.newFile("passwords.txt");
+        Files.write(dictionary.toPath(), lines, StandardCharsets.UTF_8);
+        index = new File(folder.getRoot(), "passwords.idx");
+    }
+
+    @Test
+    public void testNoFalseNegatives() throws IOException {
+        assertEquals(ENTRIES, MappedBadPasswordIndex.build(dictionary.getPath(), index.getPath()));
+        MappedBadPasswordIndex mapped = MappedBadPasswordIndex.open(index.getPath());
+        assertEquals(ENTRIES, mapped.size());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(mapped.contains("password" + i));
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertFalse(mapped.contains("correct horse battery staple " + i));
+        }
+    }
+
+    @Test
+    public void testForEachFingerprintVisitsEveryEntry() throws IOException {
+        MappedBadPasswordIndex.build(dictionary.getPath(), index.getPath());
+        MappedBadPasswordIndex mapped = MappedBadPasswordIndex.open(index.getPath());
+        Set<Long> fingerprints = new HashSet<>();
+        mapped.forEachFingerprint(fingerprints::add);
+        assertEquals(ENTRIES, fingerprints.size());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(fingerprints.contains(BadPasswordIndex.fingerprint("password" + i)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedIndexFails() throws IOException {
+        MappedBadPasswordIndex.build(dictionary.getPath(), index.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        MappedBadPasswordIndex.open(index.getPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTextFileIsNotAnIndex() throws IOException {
+        MappedBadPasswordIndex.open(dictionary.getPath());
+    }
+}
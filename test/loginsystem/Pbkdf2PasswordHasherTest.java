@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Pbkdf2PasswordHasher}.
+ */
+public class Pbkdf2PasswordHasherTest {
+    private static final String HASH = "9ZjsUL3f6CJcyS3ZqjJ/JqQWJC1vJxVRQhQ3PjAuw0I"; // 32 bytes
+    private final Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+
+    @Test
+    public void testHashMatches() {
+        String encoded = hasher.hash("Secret#123");
+        assertTrue(encoded.startsWith("pbkdf2-sha256$1000$"));
+        assertTrue(hasher.supports(encoded));
+        assertTrue(hasher.matches("Secret#123", encoded));
+        assertFalse(hasher.matches("Secret#124", encoded));
+        assertFalse(hasher.needsRehash(encoded));
+    }
+
+    @Test
+    public void testHashesAreSalted() {
+        assertNotEquals(hasher.hash("Secret#123"), hasher.hash("Secret#123"));
+    }
+
+    @Test
+    public void testWeakerHashNeedsRehash() {
+        String encoded = new Pbkdf2PasswordHasher(500).hash("Secret#123");
+        assertTrue(hasher.matches("Secret#123", encoded));
+        assertTrue(hasher.needsRehash(encoded));
+    }
+
+    @Test
+    public void testMalformedHashesNeverMatch() {
+        String[] malformed = {
+            null,
+            "",
+            TestUsers.DIGEST,
+            "pbkdf2-sha256$1000$$" + HASH, // Empty salt
+            "pbkdf2-sha256$1000$c2FsdA$", // Empty hash
+            "pbkdf2-sha256$1000$c2FsdA$c2FsdA", // Short hash
+            "pbkdf2-sha256$1000$c2FsdA$" + HASH + "$extra",
+            "pbkdf2-sha256$0$c2FsdA$" + HASH,
+            "pbkdf2-sha256$many$c2FsdA$" + HASH,
+            "pbkdf2-sha256$1000$not base64!$" + HASH,
+        };
+        for (String encoded : malformed) {
+            assertFalse(String.valueOf(encoded), hasher.matches("Secret#123", encoded));
+            assertTrue(String.valueOf(encoded), hasher.needsRehash(encoded));
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void testExcessiveIterationsAreRefused() {
+        String encoded = "pbkdf2-sha256$" + (Pbkdf2PasswordHasher.MAX_ITERATIONS + 1) + "$c2FsdA$" + HASH;
+        assertFalse(hasher.matches("Secret#123", encoded));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsExcessiveIterations() {
+        new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.MAX_ITERATIONS + 1);
+    }
+}
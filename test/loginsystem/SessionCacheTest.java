@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SessionCache}.
+ */
+public class SessionCacheTest {
+    private SessionCache cache;
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testCreateValidateInvalidate() {
+        cache = new SessionCache(60_000, 100, 4);
+        String token = cache.create("alice");
+        assertEquals("alice", cache.validate(token));
+        assertEquals(1, cache.size());
+        assertTrue(cache.invalidate(token));
+        assertNull(cache.validate(token));
+        assertFalse(cache.invalidate(token));
+        assertNull(cache.validate(null));
+        assertNull(cache.validate("unknown"));
+    }
+
+    @Test
+    public void testTokensAreUnique() {
+        cache = new SessionCache(60_000, 1000, 1000);
+        String first = cache.create("alice");
+        String second = cache.create("alice");
+        assertNotEquals(first, second);
+        assertEquals("alice", cache.validate(first));
+        assertEquals("alice", cache.validate(second));
+    }
+
+    @Test
+    public void testSessionExpires() throws InterruptedException {
+        cache = new SessionCache(50, 100, 4);
+        String token = cache.create("alice");
+        Thread.sleep(150);
+        assertNull(cache.validate(token));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testValidateExtendsSession() throws InterruptedException {
+        cache = new SessionCache(200, 100, 4);
+        String token = cache.create("alice");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(100);
+            assertEquals("alice", cache.validate(token));
+        }
+    }
+
+    @Test
+    public void testSweepDropsExpiredSessions() throws InterruptedException {
+        cache = new SessionCache(50, 100, 4);
+        for (int i = 0; i < 20; i++) {
+            cache.create("user" + i);
+        }
+        Thread.sleep(100);
+        cache.sweep();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+        cache = new SessionCache(60_000, 32, 4);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(cache.create("user" + i));
+            assertTrue(cache.size() <= 32);
+        }
+        assertEquals("user999", cache.validate(tokens.get(999)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        cache = new SessionCache(60_000, 1, 4);
+        String first = cache.create("alice");
+        String second = cache.create("bob");
+        assertNull(cache.validate(first));
+        assertEquals("bob", cache.validate(second));
+    }
+
+    @Test
+    public void testPerUserCapEndsOldestSession() {
+        cache = new SessionCache(60_000, 100, 2);
+        String first = cache.create("alice");
+        String second = cache.create("alice");
+        String third = cache.create("alice");
+        assertNull(cache.validate(first));
+        assertEquals("alice", cache.validate(second));
+        assertEquals("alice", cache.validate(third));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testPerUserCapHoldsUnderConcurrentLogins() throws InterruptedException {
+        cache = new SessionCache(60_000, 10_000, 3);
+        List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    tokens.add(cache.create("alice"));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(3, cache.size());
+        int valid = 0;
+        for (String token : tokens) {
+            if (cache.validate(token) != null) {
+                valid++;
+            }
+        }
+        assertEquals(3, valid);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoSessions() {
+        new SessionCache(60_000, 0, 4).close();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ShardedUserStore}.
+ */
+public class ShardedUserStoreTest {
+    private static final int USERS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ShardedUserStore open(int shards) {
+        return new ShardedUserStore(shards, new File(folder.getRoot(), "users.txt").getPath(),
+                file -> new FileUserStore(file, new TextUserFileFormat(';'), 16, 1, false));
+    }
+
+    @Test
+    public void testShardFile() {
+        assertEquals("users-03.txt", ShardedUserStore.shardFile("users.txt", 3, 16));
+        assertEquals("users-3.txt", ShardedUserStore.shardFile("users.txt", 3, 4));
+        assertEquals("data/users-0", ShardedUserStore.shardFile("data/users", 0, 2));
+        assertEquals("data.d/users-1", ShardedUserStore.shardFile("data.d/users", 1, 2));
+    }
+
+    @Test
+    public void testReopen() {
+        try (ShardedUserStore store = open(4)) {
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+            }
+            assertEquals(4, store.getOpenShards());
+        }
+        assertTrue(new File(folder.getRoot(), "users-0.txt").isFile());
+        try (ShardedUserStore store = open(4)) {
+            assertEquals(0, store.getOpenShards());
+            assertEquals(USERS, store.size());
+            for (int i = 0; i < USERS; i++) {
+                TestUsers.assertSameUser(TestUsers.user("user" + i), store.get("user" + i));
+            }
+            List<User> scanned = new ArrayList<>();
+            store.scan(scanned::add);
+            assertEquals(USERS, scanned.size());
+        }
+    }
+
+    @Test
+    public void testShardCountIsKept() throws IOException {
+        String path = new File(folder.getRoot(), "users.txt").getPath();
+        assertEquals(0, ShardedUserStore.readShardCount(path));
+        try (ShardedUserStore store = open(4)) {
+            assertTrue(store.putIfAbsent(TestUsers.user("alice")).join());
+        }
+        assertEquals(4, ShardedUserStore.readShardCount(path));
+        try {
+            open(8).close();
+            fail("A store with another shard count was opened");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage().contains("has 4 shards"));
+        }
+        try (ShardedUserStore store = open(4)) {
+            assertTrue(store.exists("alice"));
+        }
+    }
+
+    @Test
+    public void testShardFilesWithoutManifestAreRefused() throws IOException {
+        try (ShardedUserStore store = open(4)) {
+            assertTrue(store.putIfAbsent(TestUsers.user("alice")).join());
+        }
+        // A store written before the shard count was kept
+        assertTrue(new File(folder.getRoot(), "users.txt.shards").delete());
+        try {
+            open(2).close();
+            fail("Shard files of another layout were hidden");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage().contains("another layout"));
+        }
+        try (ShardedUserStore store = open(4)) {
+            assertTrue(store.exists("alice"));
+        }
+    }
+
+    @Test
+    public void testUnshardedStoreIsRefused() throws IOException {
+        File file = new File(folder.getRoot(), "users.txt");
+        try (FileUserStore store = new FileUserStore(file.getPath(), new TextUserFileFormat(';'), 16, 1, false)) {
+            assertTrue(store.putIfAbsent(TestUsers.user("alice")).join());
+        }
+        try {
+            open(4).close();
+            fail("An unsharded store was hidden");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage().contains("not sharded"));
+        }
+        assertFalse(new File(folder.getRoot(), "users.txt.shards").exists());
+    }
+
+    private ShardedUserStore openFiltered() {
+        return new ShardedUserStore(4, new File(folder.getRoot(), "users.txt").getPath(),
+                file -> new FileUserStore(file, new TextUserFileFormat(';'), 16, 1, false), true);
+    }
+
+    @Test
+    public void testUsernameFilterSkipsOpening() {
+        try (ShardedUserStore store = openFiltered()) {
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+            }
+        }
+        assertTrue(new File(folder.getRoot(), "users-0.txt.names").isFile());
+        try (ShardedUserStore store = openFiltered()) {
+            assertFalse(store.exists("nobody"));
+            assertNull(store.get("nobody"));
+            assertEquals(0, store.getOpenShards());
+            TestUsers.assertSameUser(TestUsers.user("user5"), store.get("user5"));
+            assertEquals(1, store.getOpenShards());
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.exists("user" + i));
+            }
+        }
+    }
+
+    @Test
+    public void testUsernameFilterIgnoredAfterChange() {
+        try (ShardedUserStore store = openFiltered()) {
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+            }
+        }
+        // Written behind the filter's back, as after a crash
+        try (ShardedUserStore store = open(4)) {
+            assertTrue(store.putIfAbsent(TestUsers.user("late")).join());
+        }
+        try (ShardedUserStore store = openFiltered()) {
+            TestUsers.assertSameUser(TestUsers.user("late"), store.get("late"));
+        }
+        try (ShardedUserStore store = openFiltered()) {
+            assertTrue(store.exists("late"));
+        }
+    }
+
+    @Test
+    public void testPartialWrite() {
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            batch.add(TestUsers.user("user" + i));
+        }
+        String failing = ShardedUserStore.shardFile(new File(folder.getRoot(), "users.txt").getPath(), 1, 2);
+        Function<String, UserStore> opener = file -> file.equals(failing)
+                ? new FailingUserStore()
+                : new FileUserStore(file, new TextUserFileFormat(';'), 16, 1, false);
+        try (ShardedUserStore store = new ShardedUserStore(2, new File(folder.getRoot(), "users.txt").getPath(), opener)) {
+            try {
+                store.putAllIfAbsent(batch).join();
+                fail("The failing shard was not reported");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof PartialWriteException);
+                PartialWriteException partial = (PartialWriteException) e.getCause();
+                int added = 0;
+                int failed = 0;
+                for (int i = 0; i < USERS; i++) {
+                    assertTrue(partial.getAdded()[i] != partial.getFailed()[i]);
+                    if (partial.getAdded()[i]) {
+                        added++;
+                        assertTrue(store.exists("user" + i));
+                    } else {
+                        failed++;
+                    }
+                }
+                assertTrue(added > 0);
+                assertTrue(failed > 0);
+            }
+        }
+    }
+
+    /**
+     * A store whose writes all fail.
+     */
+    private static final class FailingUserStore implements UserStore {
+        @Override
+        public User get(String username) {
+            return null;
+        }
+
+        @Override
+        public boolean exists(String username) {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> putIfAbsent(User user) {
+            return CompletableFuture.failedFuture(new IOException("Disk full"));
+        }
+
+        @Override
+        public CompletableFuture<Void> put(User user) {
+            return CompletableFuture.failedFuture(new IOException("Disk full"));
+        }
+
+        @Override
+        public void scan(Consumer<User> action) {
+        }
+
+        @Override
+        public long size() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package loginsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Users and checks shared by the tests.
+ */
+final class TestUsers {
+    /** A SHA-256 hash as the hasher writes it, which User packs in binary. */
+    static final String DIGEST = "5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8";
+    /** A PBKDF2 hash as the hasher writes it, which User packs in binary. */
+    static final String PBKDF2 = "pbkdf2-sha256$10000$c2FsdHNhbHRzYWx0c2FsdA$9ZjsUL3f6CJcyS3ZqjJ/JqQWJC1vJxVRQhQ3PjAuw0I";
+
+    private TestUsers() {
+    }
+
+    /**
+     * Creates a user with the given username and a SHA-256 password hash.
+     *
+     * @param username The username.
+     * @return The user.
+     */
+    static User user(String username) {
+        return new User("First", "Last", username, DIGEST, username + "@example.com");
+    }
+
+    /**
+     * Checks that a user was read back with the same fields.
+     *
+     * @param expected The user that was stored.
+     * @param actual   The user that was read, or null if none was found.
+     */
+    static void assertSameUser(User expected, User actual) {
+        assertNotNull("User " + expected.getUsername() + " is missing", actual);
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getEmail(), actual.getEmail());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link UserCache}.
+ */
+public class UserCacheTest {
+
+    /**
+     * Finds usernames that share a segment of a cache with 16 segments.
+     */
+    private static List<String> sameSegment(int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; names.size() < count; i++) {
+            int h = ("user" + i).hashCode();
+            h ^= h >>> 16;
+            if (Math.floorMod(h, 16) == 0) {
+                names.add("user" + i);
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        // 16 segments of two users each
+        UserCache cache = new UserCache(32);
+        List<String> names = sameSegment(3);
+        cache.put(TestUsers.user(names.get(0)));
+        cache.put(TestUsers.user(names.get(1)));
+        assertNotNull(cache.get(names.get(0)));
+        cache.put(TestUsers.user(names.get(2)));
+        assertNotNull(cache.get(names.get(0)));
+        assertNull(cache.get(names.get(1)));
+        assertNotNull(cache.get(names.get(2)));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.75, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testCapacity() {
+        UserCache cache = new UserCache(20);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(TestUsers.user("user" + i));
+        }
+        assertTrue(cache.size() <= 20);
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    public void testRemoveOnlyTheCachedUser() {
+        UserCache cache = new UserCache(4);
+        User cached = TestUsers.user("alice");
+        cache.put(cached);
+        cache.remove(TestUsers.user("alice"));
+        assertSame(cached, cache.get("alice"));
+        cache.remove(cached);
+        assertNull(cache.get("alice"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new UserCache(0);
+    }
+}
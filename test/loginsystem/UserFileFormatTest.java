@@ -0,0 +1,148 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link UserFileFormat} implementations.
+ */
+public class UserFileFormatTest {
+
+    private static List<User> users() {
+        return Arrays.asList(
+                TestUsers.user("alice"),
+                new User("Bob", "Builder", "bob", TestUsers.PBKDF2, "bob@example.com"),
+                new User("Zoë", "Ørsted", "zoë", "plain text", "zoë@example.com"),
+                new User("", "", "empty", "", ""));
+    }
+
+    private static byte[] write(UserFileFormat format, List<User> users) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserFileFormat.UserWriter writer = format.openWriter(out, true)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<User> read(UserFileFormat format, byte[] bytes) throws IOException {
+        List<User> users = new ArrayList<>();
+        try (UserFileFormat.UserReader reader = format.openReader(new ByteArrayInputStream(bytes))) {
+            User user;
+            while ((user = reader.read()) != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private static void assertRoundTrip(UserFileFormat format, List<User> users) throws IOException {
+        List<User> read = read(format, write(format, users));
+        assertEquals(users.size(), read.size());
+        for (int i = 0; i < users.size(); i++) {
+            TestUsers.assertSameUser(users.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void testTextRoundTrip() throws IOException {
+        assertRoundTrip(new TextUserFileFormat(';'), users());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        assertRoundTrip(new BinaryUserFileFormat(), users());
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws IOException {
+        List<User> users = new ArrayList<>(users());
+        users.add(new User("Smith, Jr.", "\"Quoted\"", "smith", TestUsers.DIGEST, "a,b@example.com"));
+        users.add(new User("Two\nLines", "Last", "lines", TestUsers.DIGEST, "lines@example.com"));
+        assertRoundTrip(new CsvUserFileFormat(), users);
+    }
+
+    @Test
+    public void testWalRoundTrip() throws IOException {
+        assertRoundTrip(new WalUserFileFormat(), users());
+    }
+
+    @Test
+    public void testLongFieldsRoundTrip() throws IOException {
+        char[] chars = new char[User.MAX_FIELD_BYTES + 10];
+        Arrays.fill(chars, 'x');
+        List<User> users = Arrays.asList(new User("First", "Last", "long", new String(chars), "long@example.com"));
+        assertRoundTrip(new BinaryUserFileFormat(), users);
+        assertRoundTrip(new WalUserFileFormat(), users);
+    }
+
+    @Test
+    public void testCsvWritesHeader() throws IOException {
+        byte[] bytes = write(new CsvUserFileFormat(), Arrays.asList(TestUsers.user("alice")));
+        assertTrue(new String(bytes, "UTF-8").startsWith(CsvUserFileFormat.HEADER + "\n")
+                || new String(bytes, "UTF-8").startsWith(CsvUserFileFormat.HEADER + "\r\n"));
+    }
+
+    @Test
+    public void testTextCannotStoreDelimiterOrLineBreak() {
+        TextUserFileFormat format = new TextUserFileFormat(';');
+        assertTrue(format.canStore(TestUsers.user("alice")));
+        assertFalse(format.canStore(new User("A;B", "Last", "ab", TestUsers.DIGEST, "ab@example.com")));
+        assertFalse(format.canStore(new User("First", "Last", "a\nb", TestUsers.DIGEST, "ab@example.com")));
+        assertFalse(format.canStore(new User("First", "Last", "ab", TestUsers.DIGEST, "ab@example.com\r")));
+    }
+
+    @Test
+    public void testTextSkipsMalformedLines() throws IOException {
+        byte[] good = write(new TextUserFileFormat(';'), Arrays.asList(TestUsers.user("alice")));
+        byte[] bytes = ("not a user\n" + new String(good, "UTF-8")).getBytes("UTF-8");
+        List<User> read = read(new TextUserFileFormat(';'), bytes);
+        assertEquals(1, read.size());
+        TestUsers.assertSameUser(TestUsers.user("alice"), read.get(0));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testBinaryTornTailFails() throws IOException {
+        byte[] bytes = write(new BinaryUserFileFormat(), users());
+        read(new BinaryUserFileFormat(), Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test
+    public void testWalTornTailIsIgnored() throws IOException {
+        List<User> users = users();
+        byte[] bytes = write(new WalUserFileFormat(), users);
+        for (int cut = 1; cut < 8; cut++) { // Less than the last record
+            List<User> read = read(new WalUserFileFormat(), Arrays.copyOf(bytes, bytes.length - cut));
+            assertEquals(users.size() - 1, read.size());
+            for (int i = 0; i < read.size(); i++) {
+                TestUsers.assertSameUser(users.get(i), read.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testWalCorruptRecordStopsReading() throws IOException {
+        List<User> users = users();
+        byte[] bytes = write(new WalUserFileFormat(), users);
+        bytes[bytes.length - 2] ^= 0x55; // Inside the last record, so its checksum no longer matches
+        List<User> read = read(new WalUserFileFormat(), bytes);
+        assertEquals(users.size() - 1, read.size());
+    }
+
+    @Test
+    public void testWalHeaderOnly() throws IOException {
+        assertTrue(read(new WalUserFileFormat(), write(new WalUserFileFormat(), new ArrayList<>())).isEmpty());
+    }
+}
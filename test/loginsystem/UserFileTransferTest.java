@@ -0,0 +1,99 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link UserFileTransfer}.
+ */
+public class UserFileTransferTest {
+    private static final int USERS = 10_000; // More than one import batch
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String file(String name) {
+        return new File(folder.getRoot(), name).getPath();
+    }
+
+    private void testRoundTrip(String exportName) throws IOException {
+        UserStore source = new InMemoryUserStore();
+        for (int i = 0; i < USERS; i++) {
+            source.putIfAbsent(TestUsers.user("user" + i)).join();
+        }
+        List<Long> progress = new ArrayList<>();
+        assertEquals(USERS, UserFileTransfer.exportUsers(source, file(exportName), progress::add));
+        assertEquals(Long.valueOf(USERS), progress.get(progress.size() - 1));
+
+        UserStore target = new InMemoryUserStore();
+        assertEquals(USERS, UserFileTransfer.importUsers(file(exportName), target, count -> { }));
+        assertEquals(USERS, target.size());
+        for (int i = 0; i < USERS; i++) {
+            TestUsers.assertSameUser(TestUsers.user("user" + i), target.get("user" + i));
+        }
+    }
+
+    @Test
+    public void testTextRoundTrip() throws IOException {
+        testRoundTrip("users.txt");
+    }
+
+    @Test
+    public void testGzipCsvRoundTrip() throws IOException {
+        testRoundTrip("users.csv.gz");
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        testRoundTrip("users.bin");
+    }
+
+    @Test
+    public void testImportKeepsStoredAndFirstRecords() throws IOException {
+        User first = TestUsers.user("dup");
+        User later = new User("Later", "Record", "dup", TestUsers.PBKDF2, "later@example.com");
+        User stored = new User("Stored", "User", "stored", TestUsers.DIGEST, "stored@example.com");
+        List<String> sources = Arrays.asList(file("a.txt"), file("b.txt"));
+        try (FileUserStore a = new FileUserStore(sources.get(0), new TextUserFileFormat(';'), 16, 1, false)) {
+            a.putIfAbsent(first).join();
+            a.putIfAbsent(TestUsers.user("stored")).join();
+        }
+        try (FileUserStore b = new FileUserStore(sources.get(1), new TextUserFileFormat(';'), 16, 1, false)) {
+            for (int i = 0; i < USERS; i++) {
+                b.putIfAbsent(TestUsers.user("user" + i)).join();
+            }
+            b.putIfAbsent(later).join(); // In a later import batch than the first record
+        }
+        assertEquals(USERS + 3, UserFileTransfer.exportFiles(sources, file("all.csv"), count -> { }));
+
+        UserStore target = new InMemoryUserStore();
+        target.putIfAbsent(stored).join();
+        assertEquals(USERS + 1, UserFileTransfer.importUsers(file("all.csv"), target, count -> { }));
+        TestUsers.assertSameUser(first, target.get("dup"));
+        TestUsers.assertSameUser(stored, target.get("stored"));
+    }
+
+    @Test
+    public void testImportSkipsUsersTheStoreCannotHold() throws IOException {
+        UserStore source = new InMemoryUserStore();
+        source.putIfAbsent(TestUsers.user("alice")).join();
+        source.putIfAbsent(new User("Semi;colon", "Last", "semi", TestUsers.DIGEST, "semi@example.com")).join();
+        UserFileTransfer.exportUsers(source, file("users.csv"), count -> { });
+        try (FileUserStore target = new FileUserStore(file("users.txt"), new TextUserFileFormat(';'), 16, 1, false)) {
+            assertEquals(1, UserFileTransfer.importUsers(file("users.csv"), target, count -> { }));
+            assertTrue(target.exists("alice"));
+            assertFalse(target.exists("semi"));
+        }
+    }
+}
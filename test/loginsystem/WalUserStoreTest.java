@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package loginsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link WalUserStore}.
+ */
+public class WalUserStoreTest {
+    private static final int USERS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private WalUserStore open() throws IOException {
+        return new WalUserStore(new File(folder.getRoot(), "users.db").getPath(), 16, 1, false, 0, 0);
+    }
+
+    private static void fill(WalUserStore store, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(store.putIfAbsent(TestUsers.user("user" + i)).join());
+        }
+    }
+
+    private static void assertFilled(WalUserStore store, int count) {
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i++) {
+            TestUsers.assertSameUser(TestUsers.user("user" + i), store.get("user" + i));
+        }
+    }
+
+    private List<String> files(String kind) {
+        List<String> names = new ArrayList<>();
+        for (String name : folder.getRoot().list()) {
+            if (name.startsWith("users.db" + kind)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testReopenReplaysLog() throws IOException {
+        User changed = new User("New", "Name", "user1", TestUsers.PBKDF2, "new@example.com");
+        try (WalUserStore store = open()) {
+            fill(store, 0, USERS);
+            store.put(changed).join();
+        }
+        try (WalUserStore store = open()) {
+            assertEquals(USERS, store.size());
+            TestUsers.assertSameUser(changed, store.get("user1"));
+            TestUsers.assertSameUser(TestUsers.user("user2"), store.get("user2"));
+        }
+    }
+
+    @Test
+    public void testCompactThenReopen() throws IOException {
+        try (WalUserStore store = open()) {
+            fill(store, 0, USERS / 2);
+            store.compact();
+            fill(store, USERS / 2, USERS);
+        }
+        assertEquals(1, files(".snapshot-").size());
+        try (WalUserStore store = open()) {
+            assertFilled(store, USERS);
+            store.compact();
+        }
+        assertEquals(1, files(".snapshot-").size());
+        assertTrue(files(".snapshot-").get(0).matches("users\\.db\\.snapshot-\\d+"));
+        try (WalUserStore store = open()) {
+            assertFilled(store, USERS);
+        }
+    }
+
+    @Test
+    public void testCompactKeepsLaterWrites() throws IOException {
+        User changed = new User("New", "Name", "user1", TestUsers.PBKDF2, "new@example.com");
+        try (WalUserStore store = open()) {
+            fill(store, 0, USERS);
+            store.compact();
+            store.put(changed).join();
+            store.compact();
+            assertEquals(1, files(".wal-").size());
+            store.compact(); // Nothing logged since the last snapshot
+        }
+        assertEquals(1, files(".snapshot-").size());
+        try (WalUserStore store = open()) {
+            assertEquals(USERS, store.size());
+            TestUsers.assertSameUser(changed, store.get("user1"));
+            TestUsers.assertSameUser(TestUsers.user("user2"), store.get("user2"));
+        }
+    }
+
+    @Test
+    public void testTornLogTailIsIgnored() throws IOException {
+        try (WalUserStore store = open()) {
+            fill(store, 0, USERS);
+            assertTrue(store.putIfAbsent(TestUsers.user("torn")).join());
+        }
+        List<String> logs = files(".wal-");
+        assertEquals(1, logs.size());
+        File log = new File(folder.getRoot(), logs.get(0));
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        try (WalUserStore store = open()) {
+            assertFilled(store, USERS);
+            assertNull(store.get("torn"));
+            assertTrue(store.putIfAbsent(TestUsers.user("after")).join());
+        }
+        try (WalUserStore store = open()) {
+            TestUsers.assertSameUser(TestUsers.user("after"), store.get("after"));
+            assertEquals(USERS + 1, store.size());
+        }
+    }
+
+    @Test
+    public void testPutAllIfAbsent() throws IOException {
+        try (WalUserStore store = open()) {
+            assertTrue(store.putIfAbsent(TestUsers.user("bob")).join());
+            boolean[] added = store.putAllIfAbsent(Arrays.asList(
+                    TestUsers.user("alice"), TestUsers.user("bob"), TestUsers.user("alice"))).join();
+            assertArrayEquals(new boolean[] {true, false, false}, added);
+        }
+        try (WalUserStore store = open()) {
+            assertEquals(2, store.size());
+            TestUsers.assertSameUser(TestUsers.user("alice"), store.get("alice"));
+        }
+    }
+}